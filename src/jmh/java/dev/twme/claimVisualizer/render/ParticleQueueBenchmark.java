@@ -0,0 +1,189 @@
+package dev.twme.claimVisualizer.render;
+
+import org.bukkit.Color;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 粒子佇列分批基準測試 - 比較舊的打亂加 LinkedList 分批與目前的黃金比例步長環狀走訪
+ * 每次呼叫模擬一位玩家的一個畫面：建立佇列並依序顯示所有批次
+ * 另於每組參數開始時輸出兩種順序的分散程度 (每批在邊線順序上的最大間隔，1.0 為理想的均勻分布)
+ * 執行方式：mvn -Pjmh test-compile exec:exec
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticleQueueBenchmark {
+    
+    // 與佇列管理器相同的最大分批數
+    private static final int BATCH_COUNT = 20;
+    
+    @Param({"1000", "10000", "100000"})
+    private int particles;
+    
+    private int particlesPerBatch;
+    
+    // 舊流程：每個粒子一個物件
+    private List<LegacyParticle> legacyParticles;
+    
+    // 新流程：原始型別粒子緩衝區
+    private ParticleBuffer buffer;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        particlesPerBatch = Math.max(1, particles / BATCH_COUNT);
+        legacyParticles = new ArrayList<>(particles);
+        buffer = new ParticleBuffer(particles);
+        
+        // 與產生器相同，粒子依邊線順序排列在一個正方形輪廓上
+        int side = Math.max(1, particles / 4);
+        for (int i = 0; i < particles; i++) {
+            int edge = i / side;
+            int offset = i % side;
+            double x = switch (edge) {
+                case 0 -> offset;
+                case 1 -> side;
+                case 2 -> side - offset;
+                default -> 0;
+            };
+            double z = switch (edge) {
+                case 0 -> 0;
+                case 1 -> offset;
+                case 2 -> side;
+                default -> side - offset;
+            };
+            int rgb = 0xFF0000;
+            legacyParticles.add(new LegacyParticle(Particle.DUST, new Location(null, x, 64, z), Color.fromRGB(rgb)));
+            buffer.add(x, 64, z, rgb, Particle.DUST, 0);
+        }
+        
+        System.out.printf("%n# spread (max gap per batch / ideal gap, lower is better): shuffle=%.2f, stride=%.2f%n",
+                spread(shuffledOrder()), spread(strideOrder()));
+    }
+    
+    /**
+     * 舊流程：打亂整個粒子清單，再複製到 LinkedList 中的 ArrayList 批次，依序取出顯示
+     */
+    @Benchmark
+    public void shuffleLinkedListBatches(Blackhole blackhole) {
+        Collections.shuffle(legacyParticles);
+        
+        Queue<List<LegacyParticle>> particleQueue = new LinkedList<>();
+        List<LegacyParticle> batch = new ArrayList<>(particlesPerBatch);
+        for (LegacyParticle data : legacyParticles) {
+            batch.add(data);
+            
+            if (batch.size() >= particlesPerBatch) {
+                particleQueue.add(new ArrayList<>(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            particleQueue.add(batch);
+        }
+        
+        List<LegacyParticle> next;
+        while ((next = particleQueue.poll()) != null) {
+            for (LegacyParticle data : next) {
+                Location location = data.location;
+                blackhole.consume(location.getX() + location.getY() + location.getZ());
+                blackhole.consume(data.particle);
+                blackhole.consume(data.color);
+            }
+        }
+    }
+    
+    /**
+     * 新流程：以步長環狀走訪同一個原始型別緩衝區，不打亂也不複製
+     */
+    @Benchmark
+    public void strideRingBuffer(Blackhole blackhole) {
+        PlayerParticleQueue queue = new PlayerParticleQueue(null, buffer, particlesPerBatch);
+        
+        while (queue.cursor < buffer.size()) {
+            int count = Math.min(queue.batchSize, buffer.size() - queue.cursor);
+            for (int i = 0; i < count; i++) {
+                int index = queue.next();
+                blackhole.consume(buffer.getX(index) + buffer.getY(index) + buffer.getZ(index));
+                blackhole.consume(buffer.getColor(index));
+            }
+        }
+    }
+    
+    private int[] shuffledOrder() {
+        List<Integer> order = new ArrayList<>(particles);
+        for (int i = 0; i < particles; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order);
+        return order.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    private int[] strideOrder() {
+        PlayerParticleQueue queue = new PlayerParticleQueue(null, buffer, particlesPerBatch);
+        int[] order = new int[particles];
+        for (int i = 0; i < particles; i++) {
+            order[i] = queue.next();
+        }
+        return order;
+    }
+    
+    /**
+     * 計算每批粒子在邊線順序上的最大環狀間隔，取所有批次的平均並除以均勻分布時的間隔
+     */
+    private double spread(int[] order) {
+        double total = 0;
+        int batches = 0;
+        for (int start = 0; start < order.length; start += particlesPerBatch) {
+            int[] batch = Arrays.copyOfRange(order, start, Math.min(order.length, start + particlesPerBatch));
+            Arrays.sort(batch);
+            
+            int maxGap = batch[0] + order.length - batch[batch.length - 1];
+            for (int i = 1; i < batch.length; i++) {
+                maxGap = Math.max(maxGap, batch[i] - batch[i - 1]);
+            }
+            total += maxGap / ((double) order.length / batch.length);
+            batches++;
+        }
+        return total / batches;
+    }
+    
+    /**
+     * 舊流程的粒子資料，與原本的 ParticleData 相同
+     */
+    private static final class LegacyParticle {
+        private final Particle particle;
+        private final Location location;
+        private final Color color;
+        
+        private LegacyParticle(Particle particle, Location location, Color color) {
+            this.particle = particle;
+            this.location = location;
+            this.color = color;
+        }
+    }
+}
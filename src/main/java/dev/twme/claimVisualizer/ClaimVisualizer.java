@@ -4,8 +4,10 @@ import dev.twme.claimVisualizer.claim.ClaimManager;
 import dev.twme.claimVisualizer.command.VisualizerCommand;
 import dev.twme.claimVisualizer.config.ConfigManager;
 import dev.twme.claimVisualizer.language.LanguageManager;
+import dev.twme.claimVisualizer.listener.ClaimEventListener;
 import dev.twme.claimVisualizer.listener.EventListener;
-import dev.twme.claimVisualizer.player.PlayerSession;
+import dev.twme.claimVisualizer.player.PlayerSessionManager;
+import dev.twme.claimVisualizer.player.ViewerRegistry;
 import dev.twme.claimVisualizer.render.ParticleRenderer;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -15,6 +17,9 @@ public final class ClaimVisualizer extends JavaPlugin {
     private ClaimManager claimManager;
     private ParticleRenderer particleRenderer;
     private LanguageManager languageManager;
+    private ClaimEventListener claimEventListener;
+    private PlayerSessionManager sessionManager;
+    private ViewerRegistry viewerRegistry;
     
     @Override
     public void onEnable() {
@@ -27,6 +32,12 @@ public final class ClaimVisualizer extends JavaPlugin {
         // 初始化領地管理器
         claimManager = new ClaimManager(this);
         
+        // 初始化玩家會話管理器
+        sessionManager = new PlayerSessionManager();
+        
+        // 初始化觀看者註冊表
+        viewerRegistry = new ViewerRegistry(this);
+        
         // 初始化粒子渲染器 - 此處無需修改，因為AsyncRenderManager在ParticleRenderer內部初始化
         particleRenderer = new ParticleRenderer(this, claimManager);
         
@@ -39,7 +50,16 @@ public final class ClaimVisualizer extends JavaPlugin {
         getServer().getPluginManager().registerEvents(
                 new EventListener(this, particleRenderer), this);
         
-        // 啟動渲染排程任務
+        // 註冊 GriefDefender 領地事件監聽器，即時更新領地快取
+        claimEventListener = new ClaimEventListener(this);
+        claimEventListener.register();
+        
+        // 啟動領地快照建立與定期校正任務
+        claimManager.startReconcileTask();
+        
+        // 啟動觀看者權限檢查與渲染排程任務
+        viewerRegistry.start();
+        viewerRegistry.refreshAll();
         particleRenderer.startRenderTask();
         
         getLogger().info("ClaimVisualizer has been enabled!");
@@ -47,16 +67,27 @@ public final class ClaimVisualizer extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        // 取消 GriefDefender 領地事件監聽
+        if (claimEventListener != null) {
+            claimEventListener.unregister();
+        }
+        
         // 停止渲染任務
         if (particleRenderer != null) {
             particleRenderer.stopRenderTask();
         }
         
-        // 清理玩家會話
-        PlayerSession.cleanupSessions();
+        // 清理觀看者與玩家會話
+        if (viewerRegistry != null) {
+            viewerRegistry.stop();
+        }
+        if (sessionManager != null) {
+            sessionManager.cleanupSessions();
+        }
         
-        // 清除快取資料
+        // 停止快照背景執行緒並清除快取資料
         if (claimManager != null) {
+            claimManager.shutdown();
             claimManager.clearAllCache();
         }
         
@@ -73,8 +104,12 @@ public final class ClaimVisualizer extends JavaPlugin {
         // 重新載入語言檔案
         languageManager.loadLanguages();
         
-        // 清除領地快取
-        claimManager.clearAllCache();
+        // 依新的快取時間重啟校正任務，並立即在背景重建所有世界的領地快照
+        // 新快照建立完成前仍沿用舊快照，避免重新載入時畫面閃爍
+        claimManager.startReconcileTask();
+        
+        // 預設顯示模式可能已改變，重新計算觀看者
+        viewerRegistry.refreshAll();
         
         // 重新啟動渲染任務
         particleRenderer.stopRenderTask();
@@ -98,4 +133,12 @@ public final class ClaimVisualizer extends JavaPlugin {
     public ParticleRenderer getParticleRenderer() {
         return particleRenderer;
     }
+    
+    public PlayerSessionManager getSessionManager() {
+        return sessionManager;
+    }
+    
+    public ViewerRegistry getViewerRegistry() {
+        return viewerRegistry;
+    }
 }
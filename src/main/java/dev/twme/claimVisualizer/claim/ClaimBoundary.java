@@ -6,13 +6,13 @@ import org.bukkit.World;
 import org.bukkit.util.Vector;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ClaimBoundary {
-
+    
     private final UUID claimId;
     private final UUID ownerId;
     private final String type;
@@ -21,6 +21,12 @@ public class ClaimBoundary {
     private final int maxX, maxY, maxZ;
     private final WallPointGenerator wallPointGenerator;
     
+    // 依粒子間距快取的邊框幾何，領地在快照之間不會變動
+    private final Map<Double, ClaimEdgeGeometry> edgeGeometryCache = new ConcurrentHashMap<>();
+    
+    // 裁切邊線時的容許誤差 (以取樣點為單位)，確保落在邊界上的點不會被捨去
+    private static final double CLIP_EPSILON = 1.0E-6;
+    
     public ClaimBoundary(UUID claimId, UUID ownerId, String type, World world, 
                          int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
         this.claimId = claimId;
@@ -90,226 +96,142 @@ public class ClaimBoundary {
     }
     
     /**
-     * 獲取底部邊框的點
+     * 取得指定粒子間距的邊框幾何快取
      */
-    public List<Location> getBottomPoints(double spacing) {
-        List<Location> points = new ArrayList<>();
-        
-        // 南北兩條線
-        for (double x = minX; x <= maxX; x += spacing) {
-            points.add(new Location(world, x, minY, minZ));
-            points.add(new Location(world, x, minY, maxZ));
-        }
-        
-        // 東西兩條線
-        for (double z = minZ; z <= maxZ; z += spacing) {
-            points.add(new Location(world, minX, minY, z));
-            points.add(new Location(world, maxX, minY, z));
-        }
-        
-        return points;
+    public ClaimEdgeGeometry getEdgeGeometry(double spacing) {
+        return edgeGeometryCache.computeIfAbsent(spacing, s -> new ClaimEdgeGeometry(this, s));
     }
     
     /**
-     * 獲取頂部邊框的點
+     * 將快取的水平外框放置在指定高度並輸出
+     * 每條邊線先裁切到視野內的區段，只走訪該區段的取樣點，成本與可見長度成正比
+     * @param volume 視野範圍，為 null 時輸出全部
+     * @param lod 依距離分級的取樣間距，為 null 時全部使用基本間距
      */
-    public List<Location> getTopPoints(double spacing) {
-        List<Location> points = new ArrayList<>();
-        
-        // 南北兩條線
-        for (double x = minX; x <= maxX; x += spacing) {
-            points.add(new Location(world, x, maxY, minZ));
-            points.add(new Location(world, x, maxY, maxZ));
-        }
-        
-        // 東西兩條線
-        for (double z = minZ; z <= maxZ; z += spacing) {
-            points.add(new Location(world, minX, maxY, z));
-            points.add(new Location(world, maxX, maxY, z));
+    private void forEachRingPoint(ClaimEdgeGeometry geometry, double y, ViewVolume volume, SpacingLod lod,
+                                  PointConsumer consumer) {
+        double[] ring = geometry.getRing();
+        double[] range = new double[2];
+        for (int edge = 0; edge < ClaimEdgeGeometry.EDGE_COUNT; edge++) {
+            int edgeStart = geometry.getEdgeStart(edge);
+            int from = edgeStart;
+            int to = geometry.getEdgeEnd(edge);
+            if (from >= to) continue;
+            
+            if (volume != null) {
+                int last = (to - 1) * 2;
+                if (!volume.clipSegment(ring[from * 2], y, ring[from * 2 + 1], ring[last], y, ring[last + 1], range)) {
+                    continue;
+                }
+                int clippedFrom = clippedStart(range, from, to);
+                to = clippedEnd(range, from, to);
+                from = clippedFrom;
+            }
+            
+            if (lod == null) {
+                for (int i = from; i < to; i++) {
+                    consumer.accept(ring[i * 2], y, ring[i * 2 + 1], 0);
+                }
+                continue;
+            }
+            
+            // 只輸出邊線索引為所在分級步長倍數的點，遠處直接跳過中間的取樣點
+            int i = from;
+            while (i < to) {
+                double x = ring[i * 2];
+                double z = ring[i * 2 + 1];
+                int stride = lod.strideAt(x, y, z);
+                int offset = (i - edgeStart) % stride;
+                if (offset != 0) {
+                    i += stride - offset;
+                    continue;
+                }
+                consumer.accept(x, y, z, 0);
+                i += stride;
+            }
         }
-        
-        return points;
     }
     
     /**
-     * 獲取玩家所在高度的水平線點
+     * 輸出垂直取樣索引 [from, to) 範圍內四個角落垂直線的點，每條垂直線先裁切到視野內的區段
+     * @param volume 視野範圍，為 null 時輸出全部
+     * @param lod 依距離分級的取樣間距，為 null 時全部使用基本間距
      */
-    public List<Location> getHorizontalPoints(double spacing, int playerY) {
-        List<Location> points = new ArrayList<>();
-        
-        // 確保在領地邊界高度範圍內
-        int displayY = Math.min(Math.max(playerY, minY), maxY);
-        
-        // 如果是頂部或底部，則不必重複渲染
-        if (displayY == minY || displayY == maxY) {
-            return points;
-        }
-        
-        // 南北兩條線
-        for (double x = minX; x <= maxX; x += spacing) {
-            points.add(new Location(world, x, displayY, minZ));
-            points.add(new Location(world, x, displayY, maxZ));
-        }
-        
-        // 東西兩條線
-        for (double z = minZ; z <= maxZ; z += spacing) {
-            points.add(new Location(world, minX, displayY, z));
-            points.add(new Location(world, maxX, displayY, z));
+    private void forEachVerticalPoint(ClaimEdgeGeometry geometry, int from, int to, ViewVolume volume, SpacingLod lod,
+                                      PointConsumer consumer) {
+        if (from >= to) return;
+        double[] ys = geometry.getVerticalYs();
+        double[] range = new double[2];
+        
+        // 四個角落的垂直線：西南、東南、西北、東北
+        for (int corner = 0; corner < 4; corner++) {
+            double x = (corner & 1) == 0 ? minX : maxX;
+            double z = (corner & 2) == 0 ? minZ : maxZ;
+            
+            int start = from;
+            int end = to;
+            if (volume != null) {
+                if (!volume.clipSegment(x, ys[from], z, x, ys[to - 1], z, range)) {
+                    continue;
+                }
+                start = clippedStart(range, from, to);
+                end = clippedEnd(range, from, to);
+            }
+            
+            int i = start;
+            while (i < end) {
+                // 垂直取樣索引以領地底部為起點，只輸出所在分級步長的倍數
+                int stride = lod == null ? 1 : lod.strideAt(x, ys[i], z);
+                int offset = i % stride;
+                if (offset != 0) {
+                    i += stride - offset;
+                    continue;
+                }
+                consumer.accept(x, ys[i], z, PointConsumer.FLAG_VERTICAL);
+                i += stride;
+            }
         }
-        
-        return points;
     }
     
     /**
-     * 獲取垂直連接線的點
+     * 將裁切後的參數範圍換算為第一個可見的取樣索引
+     * 取樣點在 [from, to) 間等距分布，t = 0 對應 from、t = 1 對應 to - 1
      */
-    public List<Location> getVerticalPoints(double spacing) {
-        List<Location> points = new ArrayList<>();
-        
-        // 四個角落的垂直線
-        for (double y = minY; y <= maxY; y += spacing) {
-            // 西南角
-            points.add(new Location(world, minX, y, minZ));
-            // 東南角
-            points.add(new Location(world, maxX, y, minZ));
-            // 西北角
-            points.add(new Location(world, minX, y, maxZ));
-            // 東北角
-            points.add(new Location(world, maxX, y, maxZ));
-        }
-        
-        return points;
+    private static int clippedStart(double[] range, int from, int to) {
+        int span = to - 1 - from;
+        return Math.max(from, from + (int) Math.ceil(range[0] * span - CLIP_EPSILON));
     }
     
     /**
-     * 獲取邊界線上的點，用於繪製粒子
+     * 將裁切後的參數範圍換算為最後一個可見取樣索引的下一個位置
      */
-    public List<Location> getOutlinePoints(double spacing) {
-        return getOutlinePoints(spacing, minY + 1);
-    }
-
-    /**
-     * 獲取邊界線上的點，用於繪製粒子，根據顯示模式考慮 3D 邊界
-     */
-    public List<Location> getOutlinePoints(double spacing, int displayHeight) {
-        List<Location> points = new ArrayList<>();
-        
-        // 結合所有部分的點
-        points.addAll(getBottomPoints(spacing));
-        points.addAll(getTopPoints(spacing));
-        points.addAll(getHorizontalPoints(spacing, displayHeight));
-        points.addAll(getVerticalPoints(spacing));
-        
-        return points;
-    }
-    
-    /**
-     * 獲取特定部分的點
-     */
-    public List<Location> getPointsForPart(ConfigManager.ClaimPart part, double spacing, int displayHeight) {
-        return switch (part) {
-            case BOTTOM -> getBottomPoints(spacing);
-            case TOP -> getTopPoints(spacing);
-            case HORIZONTAL -> getHorizontalPoints(spacing, displayHeight);
-            case VERTICAL -> getVerticalPoints(spacing);
-        };
+    private static int clippedEnd(double[] range, int from, int to) {
+        int span = to - 1 - from;
+        return Math.min(to, from + (int) Math.floor(range[1] * span + CLIP_EPSILON) + 1);
     }
     
     /**
-     * 只獲取角落點，用於角落顯示模式
+     * 輸出特定部分在視野範圍內的點
+     * @param volume 視野範圍，為 null 時輸出全部
+     * @param lod 依距離分級的取樣間距，為 null 時全部使用基本間距
      */
-    public List<Location> getCornerPoints(int cornerSize) {
-        return getCornerPoints(cornerSize, minY + 1);
-    }
-    
-    /**
-     * 只獲取角落點，用於角落顯示模式，支援 3D 領地
-     */
-    public List<Location> getCornerPoints(int cornerSize, int displayHeight) {
-        List<Location> points = new ArrayList<>();
-        
-        // 底部角落 (minY)
-        // 西南角
-        for (int x = minX; x < minX + cornerSize && x <= maxX; x++) {
-            points.add(new Location(world, x, minY, minZ));
-        }
-        for (int z = minZ; z < minZ + cornerSize && z <= maxZ; z++) {
-            points.add(new Location(world, minX, minY, z));
-        }
-        
-        // 東南角
-        for (int x = maxX; x > maxX - cornerSize && x >= minX; x--) {
-            points.add(new Location(world, x, minY, minZ));
-        }
-        for (int z = minZ; z < minZ + cornerSize && z <= maxZ; z++) {
-            points.add(new Location(world, maxX, minY, z));
-        }
-        
-        // 西北角
-        for (int x = minX; x < minX + cornerSize && x <= maxX; x++) {
-            points.add(new Location(world, x, minY, maxZ));
-        }
-        for (int z = maxZ; z > maxZ - cornerSize && z >= minZ; z--) {
-            points.add(new Location(world, minX, minY, z));
-        }
-        
-        // 東北角
-        for (int x = maxX; x > maxX - cornerSize && x >= minX; x--) {
-            points.add(new Location(world, x, minY, maxZ));
-        }
-        for (int z = maxZ; z > maxZ - cornerSize && z >= minZ; z--) {
-            points.add(new Location(world, maxX, minY, z));
-        }
-        
-        // 頂部角落 (maxY)
-        // 西南角
-        for (int x = minX; x < minX + cornerSize && x <= maxX; x++) {
-            points.add(new Location(world, x, maxY, minZ));
-        }
-        for (int z = minZ; z < minZ + cornerSize && z <= maxZ; z++) {
-            points.add(new Location(world, minX, maxY, z));
-        }
-        
-        // 東南角
-        for (int x = maxX; x > maxX - cornerSize && x >= minX; x--) {
-            points.add(new Location(world, x, maxY, minZ));
-        }
-        for (int z = minZ; z < minZ + cornerSize && z <= maxZ; z++) {
-            points.add(new Location(world, maxX, maxY, z));
-        }
-        
-        // 西北角
-        for (int x = minX; x < minX + cornerSize && x <= maxX; x++) {
-            points.add(new Location(world, x, maxY, maxZ));
-        }
-        for (int z = maxZ; z > maxZ - cornerSize && z >= minZ; z--) {
-            points.add(new Location(world, minX, maxY, z));
-        }
-        
-        // 東北角
-        for (int x = maxX; x > maxX - cornerSize && x >= minX; x--) {
-            points.add(new Location(world, x, maxY, maxZ));
-        }
-        for (int z = maxZ; z > maxZ - cornerSize && z >= minZ; z--) {
-            points.add(new Location(world, maxX, maxY, z));
-        }
-        
-        // 垂直角落線
-        for (int y = minY; y < minY + cornerSize && y <= maxY; y++) {
-            points.add(new Location(world, minX, y, minZ)); // 西南
-            points.add(new Location(world, maxX, y, minZ)); // 東南
-            points.add(new Location(world, minX, y, maxZ)); // 西北
-            points.add(new Location(world, maxX, y, maxZ)); // 東北
-        }
-        
-        for (int y = maxY; y > maxY - cornerSize && y >= minY; y--) {
-            points.add(new Location(world, minX, y, minZ)); // 西南
-            points.add(new Location(world, maxX, y, minZ)); // 東南
-            points.add(new Location(world, minX, y, maxZ)); // 西北
-            points.add(new Location(world, maxX, y, maxZ)); // 東北
+    public void forEachPointForPart(ConfigManager.ClaimPart part, double spacing, int displayHeight,
+                                   ViewVolume volume, SpacingLod lod, PointConsumer consumer) {
+        ClaimEdgeGeometry geometry = getEdgeGeometry(spacing);
+        switch (part) {
+            case BOTTOM -> forEachRingPoint(geometry, minY, volume, lod, consumer);
+            case TOP -> forEachRingPoint(geometry, maxY, volume, lod, consumer);
+            case HORIZONTAL -> {
+                // 確保在領地邊界高度範圍內
+                int displayY = Math.min(Math.max(displayHeight, minY), maxY);
+                
+                // 如果是頂部或底部，則不必重複渲染
+                if (displayY != minY && displayY != maxY) {
+                    forEachRingPoint(geometry, displayY, volume, lod, consumer);
+                }
+            }
+            case VERTICAL -> forEachVerticalPoint(geometry, 0, geometry.getVerticalYs().length, volume, lod, consumer);
         }
-        
-        return points;
     }
     
     /**
@@ -402,181 +324,100 @@ public class ClaimBoundary {
     }
     
     /**
-     * 獲取牆面上半徑內的粒子點
-     * @param center 中心點
-     * @param radius 半徑
-     * @param face 牆面
-     * @param spacing 粒子間距
-     */
-    public List<Location> getWallPointsInRadius(Location center, double radius, WallFace face, double spacing) {
-        return wallPointGenerator.getWallPointsInRadius(center, radius, face, spacing);
-    }
-    
-    /**
-     * 獲取 WALL 模式下的粒子點，新參數 wallRadius 由設定檔控制
+     * 輸出 OUTLINE 模式下附近且在視野範圍內的邊界點
+     * @param volume 視野範圍，為 null 時不限制
+     * @param lod 依距離分級的取樣間距，為 null 時全部使用基本間距
      */
-    public List<Location> getWallModePoints(Location playerLocation, int renderDistance, double spacing, double wallRadius) {
-        return wallPointGenerator.getWallModePoints(playerLocation, renderDistance, spacing, wallRadius);
-    }
-    
-    /**
-     * 獲取 OUTLINE 模式下附近的邊界點，只顯示玩家附近的水平輪廓
-     * @param playerLocation 玩家位置
-     * @param renderDistance 渲染距離
-     * @param spacing 粒子間距
-     * @param radius 顯示半徑
-     */
-    public List<Location> getOutlineNearbyPoints(Location playerLocation, int renderDistance, double spacing, double radius) {
-        List<Location> points = new ArrayList<>();
-        
+    public void forEachOutlineNearbyPoint(double playerX, double playerY, double playerZ, int renderDistance,
+                                          double spacing, double radius, ViewVolume volume, SpacingLod lod,
+                                          PointConsumer consumer) {
         // 先計算玩家與領地的最近點
-        Location nearestPoint = getNearestPoint(playerLocation);
+        double nearestX = Math.max(minX, Math.min(maxX, playerX));
+        double nearestY = Math.max(minY, Math.min(maxY, playerY));
+        double nearestZ = Math.max(minZ, Math.min(maxZ, playerZ));
         
         // 檢查最近點是否在渲染距離內
-        if (nearestPoint.distance(playerLocation) > renderDistance) {
-            return points;
+        double dx = nearestX - playerX;
+        double dy = nearestY - playerY;
+        double dz = nearestZ - playerZ;
+        if (dx * dx + dy * dy + dz * dz > (double) renderDistance * renderDistance) {
+            return;
         }
         
-        int playerY = playerLocation.getBlockY();
+        int blockY = (int) Math.floor(playerY);
+        double radiusSquared = radius * radius;
         
-        // 只獲取玩家所在高度的水平線
-        List<Location> bottomPoints = getBottomPoints(spacing);
-        List<Location> topPoints = getTopPoints(spacing);
-        List<Location> horizontalPoints = getHorizontalPoints(spacing, playerY);
+        // 只保留距離最近點指定半徑內的點
+        PointConsumer nearbyFilter = (x, y, z, flags) -> {
+            double ox = x - nearestX;
+            double oy = y - nearestY;
+            double oz = z - nearestZ;
+            if (ox * ox + oy * oy + oz * oz <= radiusSquared) {
+                consumer.accept(x, y, z, flags);
+            }
+        };
         
-        // 添加所有水平線點
-        List<Location> allPoints = new ArrayList<>();
-        allPoints.addAll(horizontalPoints);
+        // 只獲取玩家所在高度的水平線
+        forEachPointForPart(ConfigManager.ClaimPart.HORIZONTAL, spacing, blockY, volume, lod, nearbyFilter);
         
         // 如果玩家離底部或頂部很近，也添加那些點
-        if (Math.abs(playerY - minY) <= 3) {
-            allPoints.addAll(bottomPoints);
+        if (Math.abs(blockY - minY) <= 3) {
+            forEachPointForPart(ConfigManager.ClaimPart.BOTTOM, spacing, blockY, volume, lod, nearbyFilter);
         }
         
-        if (Math.abs(playerY - maxY) <= 3) {
-            allPoints.addAll(topPoints);
+        if (Math.abs(blockY - maxY) <= 3) {
+            forEachPointForPart(ConfigManager.ClaimPart.TOP, spacing, blockY, volume, lod, nearbyFilter);
         }
-        
-        // 只保留距離最近點指定半徑內的點
-        for (Location loc : allPoints) {
-            if (loc.distance(nearestPoint) <= radius) {
-                points.add(loc);
-            }
-        }
-        
-        return points;
     }
     
     /**
-     * 獲取指定垂直範圍內的邊界點
-     * @param part 領地部分
-     * @param spacing 粒子間距
-     * @param playerY 玩家Y座標
-     * @param verticalRange 垂直渲染範圍
-     * @return 指定範圍內的點列表
+     * 輸出指定垂直範圍內且在視野範圍內的邊界點
+     * @param volume 視野範圍，為 null 時不限制
+     * @param lod 依距離分級的取樣間距，為 null 時全部使用基本間距
      */
-    public List<Location> getPointsInVerticalRange(ConfigManager.ClaimPart part, double spacing, int playerY, int verticalRange) {
-        List<Location> allPoints = getPointsForPart(part, spacing, playerY);
-        List<Location> filteredPoints = new ArrayList<>();
-        
+    public void forEachPointInVerticalRange(ConfigManager.ClaimPart part, double spacing, int playerY, int verticalRange,
+                                            ViewVolume volume, SpacingLod lod, PointConsumer consumer) {
         // 計算垂直範圍的上下限
         int minRenderY = playerY - verticalRange;
         int maxRenderY = playerY + verticalRange;
         
-        // 過濾在垂直範圍內的點
-        for (Location loc : allPoints) {
-            int y = loc.getBlockY();
-            if (y >= minRenderY && y <= maxRenderY) {
-                filteredPoints.add(loc);
-            }
-        }
-        
-        return filteredPoints;
-    }
-
-    /**
-     * 帶有角落資訊的點位置
-     */
-    public static class WallPoint {
-        private final Location location;
-        private final boolean isCorner;
-        private final boolean isVertical;
-        
-        public WallPoint(Location location, boolean isCorner, boolean isVertical) {
-            this.location = location;
-            this.isCorner = isCorner;
-            this.isVertical = isVertical;
-        }
-        
-        public Location getLocation() {
-            return location;
-        }
-        
-        public boolean isCorner() {
-            return isCorner;
-        }
+        // 垂直線只取範圍內的取樣區段
+        if (part == ConfigManager.ClaimPart.VERTICAL) {
+            ClaimEdgeGeometry geometry = getEdgeGeometry(spacing);
+            forEachVerticalPoint(geometry,
+                    geometry.verticalRangeStart(minRenderY),
+                    geometry.verticalRangeEnd(maxRenderY),
+                    volume, lod, consumer);
+            return;
+        }
+        
+        // 其他部分位於同一高度，整體在範圍內或整體在範圍外
+        int partY = switch (part) {
+            case BOTTOM -> minY;
+            case TOP -> maxY;
+            default -> Math.min(Math.max(playerY, minY), maxY);
+        };
         
-        public boolean isVertical() {
-            return isVertical;
+        if (partY >= minRenderY && partY <= maxRenderY) {
+            forEachPointForPart(part, spacing, playerY, volume, lod, consumer);
         }
     }
     
     /**
-     * 獲取牆面上半徑內的粒子點，並區分角落點和一般點
-     * @param center 中心點
-     * @param radius 半徑
-     * @param face 牆面
-     * @param spacing 粒子間距
-     * @return 帶有角落資訊的點列表
-     */
-    public List<WallPoint> getWallPointsInRadiusWithCorners(Location center, double radius, WallFace face, double spacing) {
-        return wallPointGenerator.getWallPointsInRadiusWithCorners(center, radius, face, spacing);
-    }
-    
-    /**
-     * 獲取 WALL 模式下的粒子點，區分角落點
-     */
-    public List<WallPoint> getWallModePointsWithCorners(Location playerLocation, int renderDistance, double spacing, double wallRadius) {
-        return wallPointGenerator.getWallModePointsWithCorners(playerLocation, renderDistance, spacing, wallRadius);
-    }
-
-    /**
-     * 獲取考慮視線角度的 WALL 模式粒子點
-     * @param playerLocation 玩家位置
-     * @param playerDirection 玩家視線方向
-     * @param renderDistance 渲染距離
-     * @param spacing 粒子間距
-     * @param baseRadius 基礎半徑
-     * @param viewAngleEffect 視角影響係數
-     * @return 帶有角落資訊的點列表
-     */
-    public List<WallPoint> getWallModePointsWithViewAngle(
-            Location playerLocation, 
-            Vector playerDirection, 
-            int renderDistance, 
-            double spacing, 
-            double baseRadius,
-            double viewAngleEffect) {
-        return wallPointGenerator.getWallModePointsWithViewAngle(
-            playerLocation, playerDirection, renderDistance, spacing, baseRadius, viewAngleEffect);
-    }
-    
-    /**
-     * 使用射線檢測獲取 WALL 模式下的粒子點
-     * @param playerLocation 玩家位置
-     * @param playerDirection 玩家視線方向
-     * @param renderDistance 渲染距離
-     * @param spacing 粒子間距
-     * @param wallRadius 牆面渲染半徑
-     * @return 帶有角落資訊的點列表
+     * 輸出射線檢測與視角兩種方法取樣範圍聯集內的 WALL 模式粒子點，不會產生重複的點
      */
-    public List<WallPoint> getWallModePointsWithRaycast(
+    public void forEachWallModePoint(
             Location playerLocation, 
             Vector playerDirection, 
             int renderDistance, 
             double spacing, 
-            double wallRadius) {
-        return wallPointGenerator.getWallModePointsWithRaycast(
-                playerLocation, playerDirection, renderDistance, spacing, wallRadius);
+            double wallRadius,
+            double viewAngleEffect,
+            boolean useRaycast,
+            boolean useViewAngle,
+            SpacingLod lod,
+            PointConsumer consumer) {
+        wallPointGenerator.forEachWallModePoint(playerLocation, playerDirection, renderDistance, spacing,
+                wallRadius, viewAngleEffect, useRaycast, useViewAngle, lod, consumer);
     }
 }
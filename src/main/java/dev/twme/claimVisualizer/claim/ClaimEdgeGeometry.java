@@ -0,0 +1,137 @@
+package dev.twme.claimVisualizer.claim;
+
+import java.util.Arrays;
+
+/**
+ * 領地邊框幾何快取 - 以緊湊的 double 陣列儲存特定粒子間距下的邊框取樣點
+ * 領地在快照更新之間不會變動，因此同一間距只需計算一次
+ */
+public final class ClaimEdgeGeometry {
+    
+    // 水平外框的邊線數量
+    public static final int EDGE_COUNT = 4;
+    
+    private final double spacing;
+    
+    // 水平外框 (與高度無關) 的取樣點，依序存放 x0, z0, x1, z1, ...
+    // 四條邊線各自連續存放：北 (minZ)、南 (maxZ)、西 (minX)、東 (maxX)
+    private final double[] ring;
+    
+    // 每條邊線在外框中的起始點索引，最後一項為點總數
+    private final int[] edgeStarts = new int[EDGE_COUNT + 1];
+    
+    // 四條垂直邊共用的 Y 取樣值，由小到大排列
+    private final double[] verticalYs;
+    
+    ClaimEdgeGeometry(ClaimBoundary boundary, double spacing) {
+        this.spacing = spacing;
+        
+        int minX = boundary.getMinX();
+        int minY = boundary.getMinY();
+        int minZ = boundary.getMinZ();
+        int maxX = boundary.getMaxX();
+        int maxY = boundary.getMaxY();
+        int maxZ = boundary.getMaxZ();
+        
+        int countX = sampleCount(minX, maxX, spacing);
+        int countZ = sampleCount(minZ, maxZ, spacing);
+        this.ring = new double[(countX + countZ) * 4];
+        
+        int i = 0;
+        // 南北兩條線
+        for (int edge = 0; edge < 2; edge++) {
+            edgeStarts[edge] = i / 2;
+            double z = edge == 0 ? minZ : maxZ;
+            for (int n = 0; n < countX; n++) {
+                ring[i++] = minX + n * spacing;
+                ring[i++] = z;
+            }
+        }
+        
+        // 東西兩條線
+        for (int edge = 2; edge < EDGE_COUNT; edge++) {
+            edgeStarts[edge] = i / 2;
+            double x = edge == 2 ? minX : maxX;
+            for (int n = 0; n < countZ; n++) {
+                ring[i++] = x;
+                ring[i++] = minZ + n * spacing;
+            }
+        }
+        edgeStarts[EDGE_COUNT] = i / 2;
+        
+        int countY = sampleCount(minY, maxY, spacing);
+        this.verticalYs = new double[countY];
+        for (int n = 0; n < countY; n++) {
+            verticalYs[n] = minY + n * spacing;
+        }
+    }
+    
+    /**
+     * 計算 [min, max] 區間內以指定間距取樣的點數 (含兩端起點)
+     */
+    static int sampleCount(int min, int max, double spacing) {
+        if (max < min || spacing <= 0) return 0;
+        return (int) Math.floor((max - min) / spacing + 1.0E-9) + 1;
+    }
+    
+    public double getSpacing() {
+        return spacing;
+    }
+    
+    /**
+     * 取得水平外框取樣點，依序為 x, z 成對存放，呼叫者不可修改
+     */
+    public double[] getRing() {
+        return ring;
+    }
+    
+    /**
+     * 取得水平外框取樣點數量
+     */
+    public int getRingSize() {
+        return ring.length / 2;
+    }
+    
+    /**
+     * 取得邊線在外框中的起始點索引
+     * @param edge 邊線編號 (0 - 3)
+     */
+    public int getEdgeStart(int edge) {
+        return edgeStarts[edge];
+    }
+    
+    /**
+     * 取得邊線在外框中的結束點索引 (不含)
+     * @param edge 邊線編號 (0 - 3)
+     */
+    public int getEdgeEnd(int edge) {
+        return edgeStarts[edge + 1];
+    }
+    
+    /**
+     * 取得垂直邊的 Y 取樣值，呼叫者不可修改
+     */
+    public double[] getVerticalYs() {
+        return verticalYs;
+    }
+    
+    /**
+     * 取得方塊 Y 座標不小於 minBlockY 的第一個垂直取樣索引
+     */
+    public int verticalRangeStart(int minBlockY) {
+        return lowerBound(minBlockY);
+    }
+    
+    /**
+     * 取得方塊 Y 座標大於 maxBlockY 的第一個垂直取樣索引 (不含)
+     */
+    public int verticalRangeEnd(int maxBlockY) {
+        return lowerBound(maxBlockY + 1);
+    }
+    
+    private int lowerBound(double y) {
+        // 取樣值嚴格遞增，不會有重複值
+        int index = Arrays.binarySearch(verticalYs, y);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -8,17 +8,38 @@ import dev.twme.claimVisualizer.config.ConfigManager;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ClaimManager {
     
     private final ClaimVisualizer plugin;
     private final ConfigManager configManager;
     
-    // 快取機制
-    private final Map<UUID, Map<UUID, ClaimBoundary>> claimCache = new HashMap<>();
-    private final Map<UUID, Long> lastCacheUpdateTime = new HashMap<>();
+    // 每個世界目前發布的領地快照，更新時以整個快照替換
+    private final Map<UUID, ClaimSnapshot> snapshots = new ConcurrentHashMap<>();
+    
+    // 已排入背景執行緒、尚未完成的完整重建
+    private final Set<UUID> pendingRebuilds = ConcurrentHashMap.newKeySet();
+    
+    // 快照版本號產生器
+    private final AtomicLong snapshotVersion = new AtomicLong();
+    
+    // 建立快照用的背景執行緒，單一執行緒確保所有變更依序套用
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ClaimVisualizer-ClaimSnapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // 定期校正任務
+    private BukkitTask reconcileTask;
     
     public ClaimManager(ClaimVisualizer plugin) {
         this.plugin = plugin;
@@ -40,37 +61,78 @@ public class ClaimManager {
     }
     
     /**
-     * 取得玩家周圍的領地
+     * 啟動定期校正任務，立即為所有世界建立快照，之後每隔快取時間完整重建一次
      */
-    public Set<ClaimBoundary> getNearbyClaims(Player player) {
-        World world = player.getWorld();
-        UUID worldUUID = world.getUID();
+    public void startReconcileTask() {
+        stopReconcileTask();
         
-        // 檢查世界是否啟用 GriefDefender
-        if (!isWorldEnabled(world)) {
-            return new HashSet<>();
+        long period = Math.max(1, configManager.getCacheTime()) * 20L;
+        reconcileTask = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            for (World world : plugin.getServer().getWorlds()) {
+                requestRebuild(world);
+            }
+        }, 1L, period);
+    }
+    
+    /**
+     * 停止定期校正任務
+     */
+    public void stopReconcileTask() {
+        if (reconcileTask != null) {
+            reconcileTask.cancel();
+            reconcileTask = null;
         }
+    }
+    
+    /**
+     * 停止所有任務並關閉背景執行緒
+     */
+    public void shutdown() {
+        stopReconcileTask();
+        snapshotExecutor.shutdownNow();
+    }
+    
+    /**
+     * 取得世界目前的領地快照，尚未建立時回傳 null
+     * 可在任何執行緒呼叫，不會觸發重建
+     */
+    public ClaimSnapshot getSnapshot(UUID worldUUID) {
+        return snapshots.get(worldUUID);
+    }
+    
+    /**
+     * 取得玩家周圍的領地
+     */
+    public Set<ClaimBoundary> getNearbyClaims(Player player) {
+        return getNearbyClaims(player.getUniqueId(), player.getLocation());
+    }
+    
+    /**
+     * 取得指定位置周圍、玩家可見的領地
+     * 只讀取已發布的快照，可在任何執行緒呼叫
+     * @param playerId 玩家 UUID，用於判斷領地擁有者
+     * @param playerLoc 玩家位置
+     */
+    public Set<ClaimBoundary> getNearbyClaims(UUID playerId, Location playerLoc) {
+        Set<ClaimBoundary> nearbyClaims = new HashSet<>();
         
-        // 檢查快取是否需要更新
-        long currentTime = System.currentTimeMillis();
-        long cacheTimeout = configManager.getCacheTime() * 1000L;
-        
-        boolean needsUpdate = !lastCacheUpdateTime.containsKey(worldUUID) ||
-                (currentTime - lastCacheUpdateTime.get(worldUUID)) > cacheTimeout;
-                
-        if (needsUpdate) {
-            updateClaimCache(world);
+        // 只讀取已發布的快照，快照不存在代表世界未啟用 GriefDefender 或仍在建立中
+        ClaimSnapshot snapshot = snapshots.get(playerLoc.getWorld().getUID());
+        if (snapshot == null) {
+            return nearbyClaims;
         }
         
-        Map<UUID, ClaimBoundary> worldClaims = claimCache.getOrDefault(worldUUID, new HashMap<>());
-        Set<ClaimBoundary> nearbyClaims = new HashSet<>();
-        
         int renderDistance = configManager.getRenderDistance();
-        Location playerLoc = player.getLocation();
+        int x = playerLoc.getBlockX();
+        int z = playerLoc.getBlockZ();
+        
+        // 透過空間索引只取得玩家附近網格中的候選領地
+        Set<ClaimBoundary> candidates = new HashSet<>();
+        snapshot.getIndex().collectCandidates(x - renderDistance, z - renderDistance, x + renderDistance, z + renderDistance, candidates);
         
-        for (ClaimBoundary boundary : worldClaims.values()) {
+        for (ClaimBoundary boundary : candidates) {
             if (boundary.isNearby(playerLoc, renderDistance)) {
-                if (canPlayerSeeClaimType(player, boundary)) {
+                if (canPlayerSeeClaimType(playerId, boundary)) {
                     nearbyClaims.add(boundary);
                 }
                 
@@ -84,9 +146,9 @@ public class ClaimManager {
         return nearbyClaims;
     }
     
-    private boolean canPlayerSeeClaimType(Player player, ClaimBoundary boundary) {
+    private boolean canPlayerSeeClaimType(UUID playerId, ClaimBoundary boundary) {
         UUID ownerId = boundary.getOwnerId();
-        boolean isOwner = player.getUniqueId().equals(ownerId);
+        boolean isOwner = playerId.equals(ownerId);
         String claimType = boundary.getType();
         
         if (isOwner && !configManager.showOwnClaims()) {
@@ -108,58 +170,139 @@ public class ClaimManager {
         return true;
     }
     
-    private void updateClaimCache(World world) {
+    /**
+     * 排程在背景執行緒完整重建世界的領地快照，必須在主執行緒呼叫
+     * 主執行緒只讀取 GriefDefender 領地的座標與屬性，邊界物件與空間索引都在背景建立
+     * GriefDefender 的領地物件可能在主執行緒被修改，背景執行緒不可直接讀取
+     */
+    public void requestRebuild(World world) {
+        if (world == null) return;
+        
+        UUID worldUUID = world.getUID();
+        
         // 檢查世界是否啟用 GriefDefender
         if (!isWorldEnabled(world)) {
+            snapshots.remove(worldUUID);
             return;
         }
         
-        UUID worldUUID = world.getUID();
-        Map<UUID, ClaimBoundary> worldClaims = new HashMap<>();
+        // 同一世界已有重建在排隊中
+        if (!pendingRebuilds.add(worldUUID)) {
+            return;
+        }
         
-        // 獲取世界中的所有領地
-        Collection<Claim> claims = GriefDefender.getCore().getClaimManager(world.getUID()).getWorldClaims();
+        // 獲取世界中的所有領地，在主執行緒讀取為不可變的資料
+        Collection<Claim> worldClaimList = GriefDefender.getCore().getClaimManager(worldUUID).getWorldClaims();
+        List<ClaimData> claims = new ArrayList<>(worldClaimList.size());
+        for (Claim claim : worldClaimList) {
+            claims.add(readClaim(claim));
+        }
         
-        for (Claim claim : claims) {
-            UUID claimId = claim.getUniqueId();
-            UUID ownerId = claim.getOwnerUniqueId();
-            
-            String type = "basic";
-            if (claim.getType() == ClaimTypes.ADMIN) {
-                type = "admin";
-            } else if (claim.getType() == ClaimTypes.TOWN) {
-                type = "town";
-            } else if (claim.isSubdivision()) {
-                type = "subdivision";
+        submit(() -> {
+            try {
+                Map<UUID, ClaimBoundary> worldClaims = new HashMap<>();
+                for (ClaimData claim : claims) {
+                    ClaimBoundary boundary = createBoundary(claim, world);
+                    worldClaims.put(boundary.getClaimId(), boundary);
+                }
+                
+                snapshots.put(worldUUID, new ClaimSnapshot(worldUUID, worldClaims, snapshotVersion.incrementAndGet()));
+            } finally {
+                pendingRebuilds.remove(worldUUID);
             }
-            
-            // 建立邊界物件 - 獲取完整的 3D 座標
-            int minX = claim.getLesserBoundaryCorner().getX();
-            int minY = claim.getLesserBoundaryCorner().getY();
-            int minZ = claim.getLesserBoundaryCorner().getZ();
-            int maxX = claim.getGreaterBoundaryCorner().getX();
-            int maxY = claim.getGreaterBoundaryCorner().getY();
-            int maxZ = claim.getGreaterBoundaryCorner().getZ();
-            
-            // 修正：對 maxX、maxY 和 maxZ 加 1，以包含最後一個方塊的完整體積
-            ClaimBoundary boundary = new ClaimBoundary(claimId, ownerId, type, world, minX, minY, minZ, maxX + 1, maxY + 1, maxZ + 1);
-            worldClaims.put(claimId, boundary);
+        });
+    }
+    
+    /**
+     * 讀取 GriefDefender 領地的 ID、擁有者、類型與座標，必須在主執行緒呼叫
+     */
+    private ClaimData readClaim(Claim claim) {
+        String type = "basic";
+        if (claim.getType() == ClaimTypes.ADMIN) {
+            type = "admin";
+        } else if (claim.getType() == ClaimTypes.TOWN) {
+            type = "town";
+        } else if (claim.isSubdivision()) {
+            type = "subdivision";
         }
         
-        claimCache.put(worldUUID, worldClaims);
-        lastCacheUpdateTime.put(worldUUID, System.currentTimeMillis());
+        // 建立邊界物件 - 獲取完整的 3D 座標
+        int minX = claim.getLesserBoundaryCorner().getX();
+        int minY = claim.getLesserBoundaryCorner().getY();
+        int minZ = claim.getLesserBoundaryCorner().getZ();
+        int maxX = claim.getGreaterBoundaryCorner().getX();
+        int maxY = claim.getGreaterBoundaryCorner().getY();
+        int maxZ = claim.getGreaterBoundaryCorner().getZ();
+        
+        return new ClaimData(claim.getUniqueId(), claim.getOwnerUniqueId(), type,
+                minX, minY, minZ, maxX, maxY, maxZ);
+    }
+    
+    /**
+     * 將讀取的領地資料轉換為邊界物件，可在任何執行緒呼叫
+     */
+    private ClaimBoundary createBoundary(ClaimData claim, World world) {
+        // 修正：對 maxX、maxY 和 maxZ 加 1，以包含最後一個方塊的完整體積
+        return new ClaimBoundary(claim.claimId(), claim.ownerId(), claim.type(), world,
+                claim.minX(), claim.minY(), claim.minZ(), claim.maxX() + 1, claim.maxY() + 1, claim.maxZ() + 1);
     }
+    
+    /**
+     * 依 GriefDefender 目前的狀態更新同一世界中的多個領地，必須在主執行緒呼叫
+     * 領地仍存在時更新 (或新增) 其邊界，已不存在時自快照移除；所有變更只產生一個新快照
+     * 尚未建立快照的世界會由完整重建處理，因此直接略過
+     */
+    public void refreshClaims(UUID worldUUID, Collection<UUID> claimIds) {
+        if (claimIds.isEmpty()) return;
+        
+        World world = plugin.getServer().getWorld(worldUUID);
+        boolean enabled = world != null && isWorldEnabled(world);
+        
+        // 在主執行緒讀取領地資料，為 null 表示領地已不存在
+        Map<UUID, ClaimData> changes = new HashMap<>();
+        for (UUID claimId : claimIds) {
+            Claim claim = enabled ? GriefDefender.getCore().getClaimManager(worldUUID).getClaimByUUID(claimId) : null;
+            changes.put(claimId, claim != null ? readClaim(claim) : null);
+        }
         
+        // 在背景執行緒建立邊界、複製快照並套用變更，與完整重建依序執行
+        submit(() -> {
+            ClaimSnapshot current = snapshots.get(worldUUID);
+            if (current == null) {
+                return;
+            }
+            
+            Map<UUID, ClaimBoundary> boundaries = new HashMap<>();
+            for (Map.Entry<UUID, ClaimData> entry : changes.entrySet()) {
+                ClaimData data = entry.getValue();
+                boundaries.put(entry.getKey(), data != null ? createBoundary(data, world) : null);
+            }
+            snapshots.put(worldUUID, current.withClaims(boundaries, snapshotVersion.incrementAndGet()));
+        });
+    }
+    
+    private void submit(Runnable task) {
+        try {
+            snapshotExecutor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    plugin.getLogger().warning("建立領地快照時發生錯誤: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // 插件停用中，放棄更新
+        }
+    }
+    
     /**
      * 清除世界的領地快取
      */
     public void clearCache(World world) {
         if (world == null) {
-            claimCache.clear();
-            lastCacheUpdateTime.clear();
+            snapshots.clear();
         } else {
-            claimCache.remove(world.getUID());
-            lastCacheUpdateTime.remove(world.getUID());
+            snapshots.remove(world.getUID());
         }
     }
     
@@ -167,7 +310,13 @@ public class ClaimManager {
      * 清除所有快取
      */
     public void clearAllCache() {
-        claimCache.clear();
-        lastCacheUpdateTime.clear();
+        snapshots.clear();
+    }
+    
+    /**
+     * 在主執行緒自 GriefDefender 領地讀取的不可變資料 (最大座標為方塊座標，不含加 1)
+     */
+    private record ClaimData(UUID claimId, UUID ownerId, String type,
+                             int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
     }
 }
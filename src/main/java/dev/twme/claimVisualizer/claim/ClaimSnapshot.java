@@ -0,0 +1,79 @@
+package dev.twme.claimVisualizer.claim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 領地快照 - 單一世界在某個時間點的不可變領地資料與空間索引
+ * 快照建立完成後才會被發布，讀取端不會看到建立到一半的資料
+ */
+public final class ClaimSnapshot {
+
+    private final UUID worldId;
+    private final Map<UUID, ClaimBoundary> claims;
+    private final ClaimSpatialIndex index;
+    private final long version;
+    private final long createdAt;
+
+    public ClaimSnapshot(UUID worldId, Map<UUID, ClaimBoundary> claims, long version) {
+        this(worldId, claims, new ClaimSpatialIndex(claims.values()), version);
+    }
+    
+    private ClaimSnapshot(UUID worldId, Map<UUID, ClaimBoundary> claims, ClaimSpatialIndex index, long version) {
+        this.worldId = worldId;
+        this.claims = Collections.unmodifiableMap(claims);
+        this.index = index;
+        this.version = version;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 建立一次套用多個領地變更後的新快照
+     * 空間索引只更新被變更的領地，未變更的部分與原快照共用
+     * @param changes 領地 ID 對應新的邊界，邊界為 null 時表示移除該領地
+     * @param version 新快照的版本號
+     */
+    public ClaimSnapshot withClaims(Map<UUID, ClaimBoundary> changes, long version) {
+        Map<UUID, ClaimBoundary> updated = new HashMap<>(claims);
+        List<ClaimBoundary> removed = new ArrayList<>();
+        List<ClaimBoundary> added = new ArrayList<>();
+        for (Map.Entry<UUID, ClaimBoundary> entry : changes.entrySet()) {
+            ClaimBoundary boundary = entry.getValue();
+            ClaimBoundary previous = boundary == null ? updated.remove(entry.getKey()) : updated.put(entry.getKey(), boundary);
+            if (previous != null) {
+                removed.add(previous);
+            }
+            if (boundary != null) {
+                added.add(boundary);
+            }
+        }
+        return new ClaimSnapshot(worldId, updated, index.withChanges(removed, added), version);
+    }
+
+    public UUID getWorldId() {
+        return worldId;
+    }
+
+    public Map<UUID, ClaimBoundary> getClaims() {
+        return claims;
+    }
+
+    public ClaimSpatialIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * 取得快照版本號，每次發布新快照都會遞增
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,208 @@
+package dev.twme.claimVisualizer.claim;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 領地空間索引 - 以固定大小的網格桶 (XZ 平面) 加速附近領地查詢
+ * 網格桶再依區域分組，套用變更時只複製受影響的區域與網格桶，其餘部分與原索引共用
+ * 建立後不再修改，可安全地由多個執行緒同時查詢
+ */
+public class ClaimSpatialIndex {
+
+    // 網格大小為 2^CELL_SHIFT 格 (64 格)
+    private static final int CELL_SHIFT = 6;
+
+    // 每個區域包含 2^REGION_SHIFT x 2^REGION_SHIFT 個網格 (1024 x 1024 格)
+    private static final int REGION_SHIFT = 4;
+
+    // 單一領地最多佔用的網格數，超過則放入超大領地清單以避免索引膨脹
+    private static final int MAX_CELLS_PER_CLAIM = 4096;
+
+    private final Map<Long, Map<Long, List<ClaimBoundary>>> regions;
+    private final List<ClaimBoundary> oversizedClaims;
+    private final int size;
+
+    public ClaimSpatialIndex(Collection<ClaimBoundary> claims) {
+        this.regions = new HashMap<>();
+        this.oversizedClaims = new ArrayList<>();
+
+        // 全新建立的索引沒有與其他索引共用的部分，可直接寫入
+        Builder builder = new Builder(regions, oversizedClaims, true);
+        for (ClaimBoundary claim : claims) {
+            builder.insert(claim);
+        }
+        this.size = claims.size();
+    }
+
+    private ClaimSpatialIndex(Map<Long, Map<Long, List<ClaimBoundary>>> regions, List<ClaimBoundary> oversizedClaims, int size) {
+        this.regions = regions;
+        this.oversizedClaims = oversizedClaims;
+        this.size = size;
+    }
+
+    /**
+     * 建立套用變更後的新索引，原索引保持不變
+     * 只複製被變更領地涵蓋的區域與網格桶，成本與變更的領地大小成正比，而非整個世界的領地數量
+     * @param removed 要移除的邊界 (必須是原索引中的同一個物件)
+     * @param added 要加入的邊界
+     */
+    public ClaimSpatialIndex withChanges(Collection<ClaimBoundary> removed, Collection<ClaimBoundary> added) {
+        Builder builder = new Builder(new HashMap<>(regions), oversizedClaims, false);
+        for (ClaimBoundary claim : removed) {
+            builder.remove(claim);
+        }
+        for (ClaimBoundary claim : added) {
+            builder.insert(claim);
+        }
+        builder.removeEmptyBuckets();
+        return new ClaimSpatialIndex(builder.regions, builder.oversizedClaims, size - removed.size() + added.size());
+    }
+
+    /**
+     * 將與指定矩形範圍 (含邊界) 重疊之網格中的領地加入結果集合
+     * 結果為候選集合，呼叫者仍需以 {@link ClaimBoundary#isNearby} 做精確判斷
+     */
+    public void collectCandidates(int minX, int minZ, int maxX, int maxZ, Set<ClaimBoundary> result) {
+        int minCellX = minX >> CELL_SHIFT;
+        int maxCellX = maxX >> CELL_SHIFT;
+        int minCellZ = minZ >> CELL_SHIFT;
+        int maxCellZ = maxZ >> CELL_SHIFT;
+
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                Map<Long, List<ClaimBoundary>> region = regions.get(regionKey(cellX, cellZ));
+                if (region == null) continue;
+
+                List<ClaimBoundary> bucket = region.get(cellKey(cellX, cellZ));
+                if (bucket != null) {
+                    result.addAll(bucket);
+                }
+            }
+        }
+
+        result.addAll(oversizedClaims);
+    }
+
+    /**
+     * 取得索引中的領地數量
+     */
+    public int size() {
+        return size;
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    private static long regionKey(int cellX, int cellZ) {
+        return cellKey(cellX >> REGION_SHIFT, cellZ >> REGION_SHIFT);
+    }
+
+    /**
+     * 寫入時複製的索引建構器 - 第一次修改區域或網格桶時才複製，未修改的部分與原索引共用
+     */
+    private static class Builder {
+        private final Map<Long, Map<Long, List<ClaimBoundary>>> regions;
+        private List<ClaimBoundary> oversizedClaims;
+
+        // 全新建立時所有結構都屬於建構器，不需要複製
+        private final boolean owned;
+        private boolean oversizedCopied;
+        private final Set<Long> copiedRegions = new HashSet<>();
+        private final Set<Long> copiedCells = new HashSet<>();
+
+        Builder(Map<Long, Map<Long, List<ClaimBoundary>>> regions, List<ClaimBoundary> oversizedClaims, boolean owned) {
+            this.regions = regions;
+            this.oversizedClaims = oversizedClaims;
+            this.owned = owned;
+        }
+
+        void insert(ClaimBoundary claim) {
+            if (isOversized(claim)) {
+                mutableOversizedClaims().add(claim);
+                return;
+            }
+
+            forEachCell(claim, true);
+        }
+
+        void remove(ClaimBoundary claim) {
+            if (isOversized(claim)) {
+                mutableOversizedClaims().remove(claim);
+                return;
+            }
+
+            forEachCell(claim, false);
+        }
+
+        private void forEachCell(ClaimBoundary claim, boolean add) {
+            int minCellX = claim.getMinX() >> CELL_SHIFT;
+            int maxCellX = claim.getMaxX() >> CELL_SHIFT;
+            int minCellZ = claim.getMinZ() >> CELL_SHIFT;
+            int maxCellZ = claim.getMaxZ() >> CELL_SHIFT;
+
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                    List<ClaimBoundary> bucket = mutableBucket(cellX, cellZ);
+                    if (add) {
+                        bucket.add(claim);
+                    } else {
+                        bucket.remove(claim);
+                    }
+                }
+            }
+        }
+
+        private List<ClaimBoundary> mutableBucket(int cellX, int cellZ) {
+            long regionKey = regionKey(cellX, cellZ);
+            Map<Long, List<ClaimBoundary>> region = regions.get(regionKey);
+            if (region == null || (!owned && copiedRegions.add(regionKey))) {
+                region = region == null ? new HashMap<>() : new HashMap<>(region);
+                regions.put(regionKey, region);
+                copiedRegions.add(regionKey);
+            }
+
+            long cellKey = cellKey(cellX, cellZ);
+            List<ClaimBoundary> bucket = region.get(cellKey);
+            if (bucket == null || (!owned && copiedCells.add(cellKey))) {
+                bucket = bucket == null ? new ArrayList<>(4) : new ArrayList<>(bucket);
+                region.put(cellKey, bucket);
+                copiedCells.add(cellKey);
+            }
+            return bucket;
+        }
+
+        private List<ClaimBoundary> mutableOversizedClaims() {
+            if (!owned && !oversizedCopied) {
+                oversizedClaims = new ArrayList<>(oversizedClaims);
+                oversizedCopied = true;
+            }
+            return oversizedClaims;
+        }
+
+        /**
+         * 移除變更後已清空的網格桶與區域，只檢查本次複製過的區域
+         */
+        void removeEmptyBuckets() {
+            for (Long regionKey : copiedRegions) {
+                Map<Long, List<ClaimBoundary>> region = regions.get(regionKey);
+                region.values().removeIf(List::isEmpty);
+                if (region.isEmpty()) {
+                    regions.remove(regionKey);
+                }
+            }
+        }
+
+        private static boolean isOversized(ClaimBoundary claim) {
+            long cellCount = (long) ((claim.getMaxX() >> CELL_SHIFT) - (claim.getMinX() >> CELL_SHIFT) + 1)
+                    * ((claim.getMaxZ() >> CELL_SHIFT) - (claim.getMinZ() >> CELL_SHIFT) + 1);
+            return cellCount > MAX_CELLS_PER_CLAIM;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dev.twme.claimVisualizer.claim;
+
+/**
+ * 取樣點接收器 - 幾何產生器直接以原始座標輸出取樣點，避免建立 Location 物件
+ */
+@FunctionalInterface
+public interface PointConsumer {
+    
+    // 點位於領地角落
+    int FLAG_CORNER = 1;
+    
+    // 點位於垂直邊
+    int FLAG_VERTICAL = 1 << 1;
+    
+    /**
+     * 接收一個取樣點
+     * @param x X 座標
+     * @param y Y 座標
+     * @param z Z 座標
+     * @param flags 點的屬性旗標 (FLAG_CORNER、FLAG_VERTICAL)
+     */
+    void accept(double x, double y, double z, int flags);
+}
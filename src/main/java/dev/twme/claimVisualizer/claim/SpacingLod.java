@@ -0,0 +1,65 @@
+package dev.twme.claimVisualizer.claim;
+
+/**
+ * 依距離分級的取樣間距 (LOD) - 距離玩家越遠的邊框以越大的間距產生
+ * 每超過一個分級距離，間距加倍；加倍後的取樣點是原格點的子集，
+ * 因此不同分級的點互相對齊，玩家移動時遠處的點不會漂移
+ * 不可變，可在任何執行緒使用
+ */
+public final class SpacingLod {
+    
+    private final double originX, originY, originZ;
+    
+    // 各分級距離的平方，由小到大排列
+    private final double[] tierDistancesSquared;
+    
+    /**
+     * @param originX 量測距離的原點 X 座標
+     * @param originY 量測距離的原點 Y 座標
+     * @param originZ 量測距離的原點 Z 座標
+     * @param tierDistances 由小到大排列的分級距離
+     */
+    public SpacingLod(double originX, double originY, double originZ, double[] tierDistances) {
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.tierDistancesSquared = new double[tierDistances.length];
+        for (int i = 0; i < tierDistances.length; i++) {
+            tierDistancesSquared[i] = tierDistances[i] * tierDistances[i];
+        }
+    }
+    
+    /**
+     * 取得點所在分級的取樣步長 (基本間距的倍數，為 2 的次方)
+     */
+    public int strideAt(double x, double y, double z) {
+        double dx = x - originX;
+        double dy = y - originY;
+        double dz = z - originZ;
+        return strideAtDistanceSquared(dx * dx + dy * dy + dz * dz);
+    }
+    
+    /**
+     * 取得指定距離平方所在分級的取樣步長
+     */
+    public int strideAtDistanceSquared(double distanceSquared) {
+        int stride = 1;
+        for (double tier : tierDistancesSquared) {
+            if (distanceSquared <= tier) return stride;
+            stride <<= 1;
+        }
+        return stride;
+    }
+    
+    public double getOriginX() {
+        return originX;
+    }
+    
+    public double getOriginY() {
+        return originY;
+    }
+    
+    public double getOriginZ() {
+        return originZ;
+    }
+}
@@ -0,0 +1,21 @@
+package dev.twme.claimVisualizer.claim;
+
+/**
+ * 視野範圍 - 讓邊框產生器在產生點之前就排除不可見的領地與邊線區段
+ * 判斷必須保守：可能誤判為可見，但不可將可見的部分判斷為不可見
+ */
+public interface ViewVolume {
+    
+    /**
+     * 檢查軸對齊盒體是否可能有部分在視野內
+     */
+    boolean intersectsBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ);
+    
+    /**
+     * 將線段裁切到視野內的部分
+     * 線段表示為 P(t) = P1 + t (P2 - P1)，t 介於 0 到 1
+     * @param range 輸出可見部分的參數範圍 [t0, t1]，長度至少為 2
+     * @return 線段有部分可見時回傳 true
+     */
+    boolean clipSegment(double x1, double y1, double z1, double x2, double y2, double z2, double[] range);
+}
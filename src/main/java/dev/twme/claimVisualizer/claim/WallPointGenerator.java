@@ -1,10 +1,9 @@
 package dev.twme.claimVisualizer.claim;
 
 import org.bukkit.Location;
-import org.bukkit.World;
 import org.bukkit.util.Vector;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -13,10 +12,19 @@ import java.util.Set;
  * 負責生成領地牆面的粒子點
  */
 public class WallPointGenerator {
+    
+    // 計算格點索引時容許的浮點誤差 (以間距為單位)
+    private static final double LATTICE_EPSILON = 1.0E-9;
+    
+    // 牆面輸出順序，相鄰牆面共用的稜邊點由順序較前者輸出
+    private static final ClaimBoundary.WallFace[] FACES = ClaimBoundary.WallFace.values();
+    
     private final ClaimBoundary boundary;
     private final int minX, minY, minZ;
     private final int maxX, maxY, maxZ;
-    private final World world;
+    
+    // 每個牆面在平面座標下的範圍，以 WallFace 序數索引
+    private final int[][] facePlanes = new int[FACES.length][];
     
     public WallPointGenerator(ClaimBoundary boundary) {
         this.boundary = boundary;
@@ -26,393 +34,345 @@ public class WallPointGenerator {
         this.maxX = boundary.getMaxX();
         this.maxY = boundary.getMaxY();
         this.maxZ = boundary.getMaxZ();
-        this.world = boundary.getWorld();
-    }
-    
-    /**
-     * 獲取牆面上半徑內的粒子點
-     * @param center 中心點
-     * @param radius 半徑
-     * @param face 牆面
-     * @param spacing 粒子間距
-     */
-    public List<Location> getWallPointsInRadius(Location center, double radius, ClaimBoundary.WallFace face, double spacing) {
-        List<Location> points = new ArrayList<>();
-        
-        if (!center.getWorld().equals(world)) return points;
         
-        // 決定牆面的邊界
-        int faceMinX, faceMaxX, faceMinY, faceMaxY, faceMinZ, faceMaxZ;
-        
-        switch (face) {
-            case NORTH:
-                faceMinX = minX; faceMaxX = maxX;
-                faceMinY = minY; faceMaxY = maxY;
-                faceMinZ = faceMaxZ = minZ;
-                break;
-            case SOUTH:
-                faceMinX = minX; faceMaxX = maxX;
-                faceMinY = minY; faceMaxY = maxY;
-                faceMinZ = faceMaxZ = maxZ;
-                break;
-            case EAST:
-                faceMinX = faceMaxX = maxX;
-                faceMinY = minY; faceMaxY = maxY;
-                faceMinZ = minZ; faceMaxZ = maxZ;
-                break;
-            case WEST:
-                faceMinX = faceMaxX = minX;
-                faceMinY = minY; faceMaxY = maxY;
-                faceMinZ = minZ; faceMaxZ = maxZ;
-                break;
-            case TOP:
-                faceMinX = minX; faceMaxX = maxX;
-                faceMinY = faceMaxY = maxY;
-                faceMinZ = minZ; faceMaxZ = maxZ;
-                break;
-            case BOTTOM:
-                faceMinX = minX; faceMaxX = maxX;
-                faceMinY = faceMaxY = minY;
-                faceMinZ = minZ; faceMaxZ = maxZ;
-                break;
-            default:
-                return points;
+        for (ClaimBoundary.WallFace face : FACES) {
+            facePlanes[face.ordinal()] = facePlane(face);
         }
-        
-        // 計算中心點附近的範圍
-        int startX = Math.max(faceMinX, (int) (center.getX() - radius));
-        int endX = Math.min(faceMaxX, (int) (center.getX() + radius));
-        int startY = Math.max(faceMinY, (int) (center.getY() - radius));
-        int endY = Math.min(faceMaxY, (int) (center.getY() + radius));
-        int startZ = Math.max(faceMinZ, (int) (center.getZ() - radius));
-        int endZ = Math.min(faceMaxZ, (int) (center.getZ() + radius));
-        
-        // 根據間隔生成點
-        for (double x = startX; x <= endX; x += spacing) {
-            for (double y = startY; y <= endY; y += spacing) {
-                for (double z = startZ; z <= endZ; z += spacing) {
-                    Location loc = new Location(world, x, y, z);
-                    double distance = center.distance(loc);
-                    if (distance <= radius) {
-                        points.add(loc);
-                    }
-                }
-            }
-        }
-        
-        return points;
     }
     
     /**
-     * 獲取 WALL 模式下的粒子點，新參數 wallRadius 由設定檔控制
+     * 輸出所有圓盤聯集內的牆面粒子點，並以旗標區分角落點和垂直邊
+     * 球體與牆面平面的交集是一個圓盤，直接在牆面的二維格點上逐列計算圓盤範圍，只產生半徑內的點；
+     * 格點以牆面的最小角落為原點，玩家移動時點的位置不會漂移
+     * 每個牆面逐列計算各圓盤的格點區間並合併後輸出，重疊的圓盤不會產生重複的點；
+     * 相鄰牆面共用的稜邊點只由順序較前、且圓盤涵蓋該點的牆面輸出
+     * @param lod 依距離分級的取樣間距，為 null 時全部使用基本間距
      */
-    public List<Location> getWallModePoints(Location playerLocation, int renderDistance, double spacing, double wallRadius) {
-        List<Location> points = new ArrayList<>();
-        
-        boolean isInside = boundary.isPlayerInside(playerLocation);
-        
-        if (isInside) {
-            List<ClaimBoundary.WallFace> faces = boundary.getIntersectingFaces(playerLocation, renderDistance);
-            for (ClaimBoundary.WallFace face : faces) {
-                Location nearestPoint = boundary.getNearestPointOnFace(playerLocation, face);
-                points.addAll(getWallPointsInRadius(nearestPoint, wallRadius, face, spacing));
+    private void rasterize(WallDiscs discs, double baseSpacing, SpacingLod lod, PointConsumer consumer) {
+        if (baseSpacing <= 0 || discs.count == 0) return;
+        assignFaceSpacings(discs, baseSpacing, lod);
+        
+        for (ClaimBoundary.WallFace face : FACES) {
+            double spacing = discs.faceSpacing[face.ordinal()];
+            if (spacing == Double.POSITIVE_INFINITY) continue;
+            double edgeDistance = spacing / 2.0;
+            
+            int[] plane = facePlanes[face.ordinal()];
+            int uMin = plane[0], uMax = plane[1], vMin = plane[2], vMax = plane[3], w = plane[4];
+            
+            // 將此牆面的圓盤投影到平面座標，中心點不在牆面上時圓盤半徑隨與平面的距離縮小
+            int discCount = 0;
+            double rowLow = Double.POSITIVE_INFINITY;
+            double rowHigh = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < discs.count; i++) {
+                if (discs.faces[i] != face) continue;
+                double dw = w - planeW(face, discs.centerX[i], discs.centerY[i], discs.centerZ[i]);
+                double discRadiusSquared = discs.radius[i] * discs.radius[i] - dw * dw;
+                if (discRadiusSquared < 0) continue;
+                
+                double centerV = planeV(face, discs.centerX[i], discs.centerY[i], discs.centerZ[i]);
+                double discRadius = Math.sqrt(discRadiusSquared);
+                discs.planeU[discCount] = planeU(face, discs.centerX[i], discs.centerY[i], discs.centerZ[i]);
+                discs.planeV[discCount] = centerV;
+                discs.planeRadiusSquared[discCount] = discRadiusSquared;
+                rowLow = Math.min(rowLow, centerV - discRadius);
+                rowHigh = Math.max(rowHigh, centerV + discRadius);
+                discCount++;
             }
-        } else {
-            // 當玩家在領地外：根據玩家與領地最近點關係判斷要顯示的牆面個數
-            Location nearestPoint = boundary.getNearestPoint(playerLocation);
-            double tolerance = 1.0; // 定義允許偏差
-            Set<ClaimBoundary.WallFace> candidateFaces = new HashSet<>();
-            if (playerLocation.getX() < minX + tolerance) candidateFaces.add(ClaimBoundary.WallFace.WEST);
-            if (playerLocation.getX() > maxX - tolerance) candidateFaces.add(ClaimBoundary.WallFace.EAST);
-            if (playerLocation.getY() < minY + tolerance) candidateFaces.add(ClaimBoundary.WallFace.BOTTOM);
-            if (playerLocation.getY() > maxY - tolerance) candidateFaces.add(ClaimBoundary.WallFace.TOP);
-            if (playerLocation.getZ() < minZ + tolerance) candidateFaces.add(ClaimBoundary.WallFace.NORTH);
-            if (playerLocation.getZ() > maxZ - tolerance) candidateFaces.add(ClaimBoundary.WallFace.SOUTH);
+            if (discCount == 0) continue;
             
-            if (candidateFaces.isEmpty()) {
-                double distToWest = Math.abs(nearestPoint.getX() - minX);
-                double distToEast = Math.abs(nearestPoint.getX() - maxX);
-                double distToBottom = Math.abs(nearestPoint.getY() - minY);
-                double distToTop = Math.abs(nearestPoint.getY() - maxY);
-                double distToNorth = Math.abs(nearestPoint.getZ() - minZ);
-                double distToSouth = Math.abs(nearestPoint.getZ() - maxZ);
-                double minDist = Math.min(Math.min(Math.min(distToWest, distToEast), Math.min(distToBottom, distToTop)), Math.min(distToNorth, distToSouth));
-                if (minDist == distToWest) candidateFaces.add(ClaimBoundary.WallFace.WEST);
-                else if (minDist == distToEast) candidateFaces.add(ClaimBoundary.WallFace.EAST);
-                else if (minDist == distToBottom) candidateFaces.add(ClaimBoundary.WallFace.BOTTOM);
-                else if (minDist == distToTop) candidateFaces.add(ClaimBoundary.WallFace.TOP);
-                else if (minDist == distToNorth) candidateFaces.add(ClaimBoundary.WallFace.NORTH);
-                else if (minDist == distToSouth) candidateFaces.add(ClaimBoundary.WallFace.SOUTH);
+            // 側面的一般點屬於垂直牆，頂面與底面沒有垂直邊
+            boolean sideFace = face != ClaimBoundary.WallFace.TOP && face != ClaimBoundary.WallFace.BOTTOM;
+            
+            // 領地在牆面法線方向沒有厚度時，相對的兩個牆面是同一個平面，整面都需要檢查是否已輸出
+            boolean sharedPlane = isFlat(face);
+            
+            // 牆面尺寸剛好是間距整數倍時，最後一列/行的格點對齊到稜邊上
+            int lastColumn = edgeIndex(uMax - uMin, spacing);
+            int lastRow = edgeIndex(vMax - vMin, spacing);
+            
+            // 首先輸出圓盤內的牆面角落
+            emitCorner(discs, discCount, face, uMin, vMin, w, consumer);
+            if (uMax != uMin) emitCorner(discs, discCount, face, uMax, vMin, w, consumer);
+            if (vMax != vMin) {
+                emitCorner(discs, discCount, face, uMin, vMax, w, consumer);
+                if (uMax != uMin) emitCorner(discs, discCount, face, uMax, vMax, w, consumer);
             }
             
-            for (ClaimBoundary.WallFace face : candidateFaces) {
-                points.addAll(getWallPointsInRadius(nearestPoint, wallRadius, face, spacing));
+            // 逐列計算各圓盤與牆面範圍交集的格點區間
+            int rowStart = Math.max(0, ceilIndex(rowLow - vMin, spacing));
+            int rowEnd = floorIndex(Math.min(vMax, rowHigh) - vMin, spacing);
+            for (int row = rowStart; row <= rowEnd; row++) {
+                double v = row == lastRow ? vMax : vMin + row * spacing;
+                boolean nearVEdge = row == 0 || vMax - v < edgeDistance;
+                boolean onVEdge = row == 0 || row == lastRow;
+                
+                int intervalCount = 0;
+                for (int d = 0; d < discCount; d++) {
+                    double dv = v - discs.planeV[d];
+                    double halfWidthSquared = discs.planeRadiusSquared[d] - dv * dv;
+                    if (halfWidthSquared < 0) continue;
+                    double halfWidth = Math.sqrt(halfWidthSquared);
+                    
+                    int columnStart = Math.max(0, ceilIndex(discs.planeU[d] - halfWidth - uMin, spacing));
+                    int columnEnd = floorIndex(Math.min(uMax, discs.planeU[d] + halfWidth) - uMin, spacing);
+                    if (columnStart > columnEnd) continue;
+                    
+                    // 依起點插入排序，區間數量很少
+                    int index = intervalCount++;
+                    while (index > 0 && discs.intervalStart[index - 1] > columnStart) {
+                        discs.intervalStart[index] = discs.intervalStart[index - 1];
+                        discs.intervalEnd[index] = discs.intervalEnd[index - 1];
+                        index--;
+                    }
+                    discs.intervalStart[index] = columnStart;
+                    discs.intervalEnd[index] = columnEnd;
+                }
+                
+                // 合併重疊的區間，每個格點只輸出一次
+                int emittedEnd = -1;
+                for (int k = 0; k < intervalCount; k++) {
+                    int columnStart = Math.max(discs.intervalStart[k], emittedEnd + 1);
+                    int columnEnd = discs.intervalEnd[k];
+                    
+                    for (int column = columnStart; column <= columnEnd; column++) {
+                        double u = column == lastColumn ? uMax : uMin + column * spacing;
+                        boolean nearUEdge = column == 0 || uMax - u < edgeDistance;
+                        
+                        // 靠近角落的格點由精確的角落點取代
+                        if (nearUEdge && nearVEdge) continue;
+                        
+                        // 牆面本身已位於一個軸的邊緣，再靠近任一面內邊緣即為領地的稜邊
+                        int flags = 0;
+                        if (nearUEdge || nearVEdge) flags |= PointConsumer.FLAG_CORNER;
+                        if (sideFace && !nearVEdge) flags |= PointConsumer.FLAG_VERTICAL;
+                        
+                        boolean onEdge = sharedPlane || onVEdge || column == 0 || column == lastColumn;
+                        emit(discs, face, u, v, w, flags, onEdge, consumer);
+                    }
+                    emittedEnd = Math.max(emittedEnd, columnEnd);
+                }
             }
         }
-        return points;
     }
     
     /**
-     * 檢查位置是否接近邊緣，用於角落檢測
+     * 決定每個牆面的取樣間距，沒有圓盤的牆面為無限大
+     * 依牆面上最接近玩家的圓盤所在的距離分級放大基本間距；放大倍數為 2 的次方，
+     * 格點仍以牆面最小角落為原點，因此較疏的格點是基本格點的子集
      */
-    private int countNearEdges(double x, double y, double z, double edgeDistance) {
-        int edgeCount = 0;
-        
-        // 檢查X軸的邊緣
-        if (Math.abs(x - minX) < edgeDistance || Math.abs(x - maxX) < edgeDistance) {
-            edgeCount++;
-        }
-        
-        // 檢查Y軸的邊緣
-        if (Math.abs(y - minY) < edgeDistance || Math.abs(y - maxY) < edgeDistance) {
-            edgeCount++;
-        }
-        
-        // 檢查Z軸的邊緣
-        if (Math.abs(z - minZ) < edgeDistance || Math.abs(z - maxZ) < edgeDistance) {
-            edgeCount++;
+    private static void assignFaceSpacings(WallDiscs discs, double baseSpacing, SpacingLod lod) {
+        Arrays.fill(discs.faceSpacing, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < discs.count; i++) {
+            int stride = 1;
+            if (lod != null) {
+                // 圓盤上最接近玩家的點的距離下限
+                double dx = discs.centerX[i] - lod.getOriginX();
+                double dy = discs.centerY[i] - lod.getOriginY();
+                double dz = discs.centerZ[i] - lod.getOriginZ();
+                double nearest = Math.max(0.0, Math.sqrt(dx * dx + dy * dy + dz * dz) - discs.radius[i]);
+                stride = lod.strideAtDistanceSquared(nearest * nearest);
+            }
+            
+            int face = discs.faces[i].ordinal();
+            discs.faceSpacing[face] = Math.min(discs.faceSpacing[face], baseSpacing * stride);
         }
-        
-        return edgeCount;
     }
     
     /**
-     * 判斷點是否在垂直邊上
+     * 角落在此牆面的任一圓盤內時輸出角落點
      */
-    private boolean isOnVerticalEdge(double x, double y, double z, double edgeDistance) {
-        boolean onXEdge = Math.abs(x - minX) < edgeDistance || Math.abs(x - maxX) < edgeDistance;
-        boolean onZEdge = Math.abs(z - minZ) < edgeDistance || Math.abs(z - maxZ) < edgeDistance;
-        
-        // 在垂直邊上需要同時滿足：1. 在X或Z的邊緣 2. 不在Y的邊緣上
-        boolean notOnYEdge = Math.abs(y - minY) >= edgeDistance && Math.abs(y - maxY) >= edgeDistance;
-        
-        return (onXEdge || onZEdge) && notOnYEdge;
+    private void emitCorner(WallDiscs discs, int discCount, ClaimBoundary.WallFace face, double u, double v, double w,
+                            PointConsumer consumer) {
+        for (int d = 0; d < discCount; d++) {
+            double du = u - discs.planeU[d];
+            double dv = v - discs.planeV[d];
+            if (du * du + dv * dv <= discs.planeRadiusSquared[d]) {
+                emit(discs, face, u, v, w, PointConsumer.FLAG_CORNER, true, consumer);
+                return;
+            }
+        }
     }
     
     /**
-     * 獲取牆面上半徑內的粒子點，並區分角落點和一般點
+     * 將牆面平面座標轉換回世界座標後輸出
+     * 位於稜邊上的點若已由順序較前的相鄰牆面輸出則略過
      */
-    public List<ClaimBoundary.WallPoint> getWallPointsInRadiusWithCorners(Location center, double radius, ClaimBoundary.WallFace face, double spacing) {
-        List<ClaimBoundary.WallPoint> points = new ArrayList<>();
-        
-        if (!center.getWorld().equals(world)) return points;
-        
-        // 決定牆面的邊界
-        int faceMinX, faceMaxX, faceMinY, faceMaxY, faceMinZ, faceMaxZ;
-        
+    private void emit(WallDiscs discs, ClaimBoundary.WallFace face, double u, double v, double w, int flags,
+                      boolean onEdge, PointConsumer consumer) {
+        double x, y, z;
         switch (face) {
             case NORTH:
-                faceMinX = minX; faceMaxX = maxX;
-                faceMinY = minY; faceMaxY = maxY;
-                faceMinZ = faceMaxZ = minZ;
-                break;
             case SOUTH:
-                faceMinX = minX; faceMaxX = maxX;
-                faceMinY = minY; faceMaxY = maxY;
-                faceMinZ = faceMaxZ = maxZ;
+                x = u; y = v; z = w;
                 break;
             case EAST:
-                faceMinX = faceMaxX = maxX;
-                faceMinY = minY; faceMaxY = maxY;
-                faceMinZ = minZ; faceMaxZ = maxZ;
-                break;
             case WEST:
-                faceMinX = faceMaxX = minX;
-                faceMinY = minY; faceMaxY = maxY;
-                faceMinZ = minZ; faceMaxZ = maxZ;
-                break;
-            case TOP:
-                faceMinX = minX; faceMaxX = maxX;
-                faceMinY = faceMaxY = maxY;
-                faceMinZ = minZ; faceMaxZ = maxZ;
-                break;
-            case BOTTOM:
-                faceMinX = minX; faceMaxX = maxX;
-                faceMinY = faceMaxY = minY;
-                faceMinZ = minZ; faceMaxZ = maxZ;
+                x = w; y = v; z = u;
                 break;
             default:
-                return points;
+                x = u; y = w; z = v;
+                break;
         }
         
-        // 計算中心點附近的範圍
-        int startX = Math.max(faceMinX, (int) (center.getX() - radius));
-        int endX = Math.min(faceMaxX, (int) (center.getX() + radius));
-        int startY = Math.max(faceMinY, (int) (center.getY() - radius));
-        int endY = Math.min(faceMaxY, (int) (center.getY() + radius));
-        int startZ = Math.max(faceMinZ, (int) (center.getZ() - radius));
-        int endZ = Math.min(faceMaxZ, (int) (center.getZ() + radius));
-        
-        // 為了確保角落被渲染，我們計算出精確的角落位置
-        Set<Location> cornerLocations = new HashSet<>();
-        double edgeDistance = spacing / 2.0; // 用於判斷是否靠近邊緣
-        
-        // 添加面的所有角落
-        if (face != ClaimBoundary.WallFace.NORTH && face != ClaimBoundary.WallFace.SOUTH) {
-            if (startZ <= minZ && minZ <= endZ) {
-                if (startX <= minX && minX <= endX) cornerLocations.add(new Location(world, minX, startY, minZ));
-                if (startX <= maxX && maxX <= endX) cornerLocations.add(new Location(world, maxX, startY, minZ));
-                if (startY <= maxY && maxY <= endY) {
-                    if (startX <= minX && minX <= endX) cornerLocations.add(new Location(world, minX, maxY, minZ));
-                    if (startX <= maxX && maxX <= endX) cornerLocations.add(new Location(world, maxX, maxY, minZ));
-                }
-            }
+        if (onEdge && isEmittedByEarlierFace(discs, face, x, y, z)) return;
+        consumer.accept(x, y, z, flags);
+    }
+    
+    /**
+     * 稜邊上的點是否已由順序較前的另一個牆面輸出
+     * 該點必須位於另一個牆面的格點上 (靠近角落的格點除外，角落只輸出精確點)，且在該牆面的圓盤內
+     */
+    private boolean isEmittedByEarlierFace(WallDiscs discs, ClaimBoundary.WallFace face, double x, double y, double z) {
+        for (int i = 0; i < discs.count; i++) {
+            ClaimBoundary.WallFace other = discs.faces[i];
+            if (other.ordinal() >= face.ordinal()) continue;
             
-            if (startZ <= maxZ && maxZ <= endZ) {
-                if (startX <= minX && minX <= endX) cornerLocations.add(new Location(world, minX, startY, maxZ));
-                if (startX <= maxX && maxX <= endX) cornerLocations.add(new Location(world, maxX, startY, maxZ));
-                if (startY <= maxY && maxY <= endY) {
-                    if (startX <= minX && minX <= endX) cornerLocations.add(new Location(world, minX, maxY, maxZ));
-                    if (startX <= maxX && maxX <= endX) cornerLocations.add(new Location(world, maxX, maxY, maxZ));
-                }
-            }
-        }
-        
-        if (face != ClaimBoundary.WallFace.EAST && face != ClaimBoundary.WallFace.WEST) {
-            if (startX <= minX && minX <= endX) {
-                if (startZ <= minZ && minZ <= endZ) cornerLocations.add(new Location(world, minX, startY, minZ));
-                if (startZ <= maxZ && maxZ <= endZ) cornerLocations.add(new Location(world, minX, startY, maxZ));
-                if (startY <= maxY && maxY <= endY) {
-                    if (startZ <= minZ && minZ <= endZ) cornerLocations.add(new Location(world, minX, maxY, minZ));
-                    if (startZ <= maxZ && maxZ <= endZ) cornerLocations.add(new Location(world, minX, maxY, maxZ));
-                }
-            }
+            double spacing = discs.faceSpacing[other.ordinal()];
+            double edgeDistance = spacing / 2.0;
+            int[] plane = facePlanes[other.ordinal()];
+            if (planeW(other, x, y, z) != plane[4]) continue;
             
-            if (startX <= maxX && maxX <= endX) {
-                if (startZ <= minZ && minZ <= endZ) cornerLocations.add(new Location(world, maxX, startY, minZ));
-                if (startZ <= maxZ && maxZ <= endZ) cornerLocations.add(new Location(world, maxX, startY, maxZ));
-                if (startY <= maxY && maxY <= endY) {
-                    if (startZ <= minZ && minZ <= endZ) cornerLocations.add(new Location(world, maxX, maxY, minZ));
-                    if (startZ <= maxZ && maxZ <= endZ) cornerLocations.add(new Location(world, maxX, maxY, maxZ));
-                }
+            double u = planeU(other, x, y, z);
+            double v = planeV(other, x, y, z);
+            boolean exactCorner = (u == plane[0] || u == plane[1]) && (v == plane[2] || v == plane[3]);
+            if (!exactCorner) {
+                if (!isOnLattice(u - plane[0], spacing) || !isOnLattice(v - plane[2], spacing)) continue;
+                boolean nearUEdge = u - plane[0] < edgeDistance || plane[1] - u < edgeDistance;
+                boolean nearVEdge = v - plane[2] < edgeDistance || plane[3] - v < edgeDistance;
+                if (nearUEdge && nearVEdge) continue;
             }
-        }
-        
-        // 首先將所有角落點加入列表
-        for (Location corner : cornerLocations) {
-            if (corner.distance(center) <= radius) {
-                points.add(new ClaimBoundary.WallPoint(corner, true, false));
+            
+            double dx = x - discs.centerX[i];
+            double dy = y - discs.centerY[i];
+            double dz = z - discs.centerZ[i];
+            if (dx * dx + dy * dy + dz * dz <= discs.radius[i] * discs.radius[i]) {
+                return true;
             }
         }
-        
-        // 根據間隔生成其他點
-        for (double x = startX; x <= endX; x += spacing) {
-            for (double y = startY; y <= endY; y += spacing) {
-                for (double z = startZ; z <= endZ; z += spacing) {
-                    Location loc = new Location(world, x, y, z);
-                    
-                    // 檢查點是否靠近角落
-                    boolean isNearCorner = false;
-                    for (Location corner : cornerLocations) {
-                        if (Math.abs(corner.getX() - x) < edgeDistance &&
-                            Math.abs(corner.getY() - y) < edgeDistance &&
-                            Math.abs(corner.getZ() - z) < edgeDistance) {
-                            isNearCorner = true;
-                            break;
-                        }
-                    }
-                    
-                    // 如果點靠近角落，跳過，因為我們已經添加了精確的角落點
-                    if (isNearCorner) continue;
-                    
-                    double distance = center.distance(loc);
-                    if (distance <= radius) {
-                        // 計算該點是否在邊緣，以及是否是垂直邊
-                        boolean isVertical = isOnVerticalEdge(x, y, z, edgeDistance);
-                        int edgeCount = countNearEdges(x, y, z, edgeDistance);
-                        boolean isCorner = edgeCount >= 2;
-                        
-                        points.add(new ClaimBoundary.WallPoint(loc, isCorner, isVertical));
-                    }
-                }
-            }
+        return false;
+    }
+    
+    /**
+     * 牆面在平面座標下的範圍：{uMin, uMax, vMin, vMax, w}
+     */
+    private int[] facePlane(ClaimBoundary.WallFace face) {
+        switch (face) {
+            case NORTH:
+                return new int[] {minX, maxX, minY, maxY, minZ};
+            case SOUTH:
+                return new int[] {minX, maxX, minY, maxY, maxZ};
+            case WEST:
+                return new int[] {minZ, maxZ, minY, maxY, minX};
+            case EAST:
+                return new int[] {minZ, maxZ, minY, maxY, maxX};
+            case BOTTOM:
+                return new int[] {minX, maxX, minZ, maxZ, minY};
+            default:
+                return new int[] {minX, maxX, minZ, maxZ, maxY};
         }
-        
-        return points;
     }
     
     /**
-     * 獲取 WALL 模式下的粒子點，區分角落點
+     * 領地在牆面法線方向上是否沒有厚度
      */
-    public List<ClaimBoundary.WallPoint> getWallModePointsWithCorners(Location playerLocation, int renderDistance, double spacing, double wallRadius) {
-        List<ClaimBoundary.WallPoint> points = new ArrayList<>();
-        
-        boolean isInside = boundary.isPlayerInside(playerLocation);
-        
-        if (isInside) {
-            List<ClaimBoundary.WallFace> faces = boundary.getIntersectingFaces(playerLocation, renderDistance);
-            for (ClaimBoundary.WallFace face : faces) {
-                Location nearestPoint = boundary.getNearestPointOnFace(playerLocation, face);
-                points.addAll(getWallPointsInRadiusWithCorners(nearestPoint, wallRadius, face, spacing));
-            }
-        } else {
-            // 當玩家在領地外：根據玩家與領地最近點關係判斷要顯示的牆面個數
-            Location nearestPoint = boundary.getNearestPoint(playerLocation);
-            double tolerance = 1.0; // 定義允許偏差
-            Set<ClaimBoundary.WallFace> candidateFaces = new HashSet<>();
-            if (playerLocation.getX() < minX + tolerance) candidateFaces.add(ClaimBoundary.WallFace.WEST);
-            if (playerLocation.getX() > maxX - tolerance) candidateFaces.add(ClaimBoundary.WallFace.EAST);
-            if (playerLocation.getY() < minY + tolerance) candidateFaces.add(ClaimBoundary.WallFace.BOTTOM);
-            if (playerLocation.getY() > maxY - tolerance) candidateFaces.add(ClaimBoundary.WallFace.TOP);
-            if (playerLocation.getZ() < minZ + tolerance) candidateFaces.add(ClaimBoundary.WallFace.NORTH);
-            if (playerLocation.getZ() > maxZ - tolerance) candidateFaces.add(ClaimBoundary.WallFace.SOUTH);
-            
-            if (candidateFaces.isEmpty()) {
-                double distToWest = Math.abs(nearestPoint.getX() - minX);
-                double distToEast = Math.abs(nearestPoint.getX() - maxX);
-                double distToBottom = Math.abs(nearestPoint.getY() - minY);
-                double distToTop = Math.abs(nearestPoint.getY() - maxY);
-                double distToNorth = Math.abs(nearestPoint.getZ() - minZ);
-                double distToSouth = Math.abs(nearestPoint.getZ() - maxZ);
-                double minDist = Math.min(Math.min(Math.min(distToWest, distToEast), Math.min(distToBottom, distToTop)), Math.min(distToNorth, distToSouth));
-                if (minDist == distToWest) candidateFaces.add(ClaimBoundary.WallFace.WEST);
-                else if (minDist == distToEast) candidateFaces.add(ClaimBoundary.WallFace.EAST);
-                else if (minDist == distToBottom) candidateFaces.add(ClaimBoundary.WallFace.BOTTOM);
-                else if (minDist == distToTop) candidateFaces.add(ClaimBoundary.WallFace.TOP);
-                else if (minDist == distToNorth) candidateFaces.add(ClaimBoundary.WallFace.NORTH);
-                else if (minDist == distToSouth) candidateFaces.add(ClaimBoundary.WallFace.SOUTH);
-            }
-            
-            for (ClaimBoundary.WallFace face : candidateFaces) {
-                points.addAll(getWallPointsInRadiusWithCorners(nearestPoint, wallRadius, face, spacing));
-            }
+    private boolean isFlat(ClaimBoundary.WallFace face) {
+        switch (face) {
+            case NORTH:
+            case SOUTH:
+                return minZ == maxZ;
+            case EAST:
+            case WEST:
+                return minX == maxX;
+            default:
+                return minY == maxY;
         }
-        return points;
     }
-
+    
+    private static double planeU(ClaimBoundary.WallFace face, double x, double y, double z) {
+        return face == ClaimBoundary.WallFace.EAST || face == ClaimBoundary.WallFace.WEST ? z : x;
+    }
+    
+    private static double planeV(ClaimBoundary.WallFace face, double x, double y, double z) {
+        return face == ClaimBoundary.WallFace.TOP || face == ClaimBoundary.WallFace.BOTTOM ? z : y;
+    }
+    
+    private static double planeW(ClaimBoundary.WallFace face, double x, double y, double z) {
+        switch (face) {
+            case NORTH:
+            case SOUTH:
+                return z;
+            case EAST:
+            case WEST:
+                return x;
+            default:
+                return y;
+        }
+    }
+    
     /**
-     * 獲取 WALL 模式下的粒子點，基於視線角度調整半徑
-     * @param playerLocation 玩家位置
-     * @param playerDirection 玩家視線方向
-     * @param renderDistance 渲染距離
-     * @param spacing 粒子間距
-     * @param baseRadius 基礎半徑
-     * @param viewAngleEffect 視角影響係數(0-1)
-     * @return 帶有角落資訊的點列表
+     * 位於 offset 以上的最小格點索引
      */
-    public List<ClaimBoundary.WallPoint> getWallModePointsWithViewAngle(
+    private static int ceilIndex(double offset, double spacing) {
+        return (int) Math.ceil(offset / spacing - LATTICE_EPSILON);
+    }
+    
+    /**
+     * 位於 offset 以下的最大格點索引
+     */
+    private static int floorIndex(double offset, double spacing) {
+        return (int) Math.floor(offset / spacing + LATTICE_EPSILON);
+    }
+    
+    /**
+     * 剛好落在 length 處的格點索引，不對齊時回傳 -1
+     */
+    private static int edgeIndex(double length, double spacing) {
+        return isOnLattice(length, spacing) ? (int) Math.round(length / spacing) : -1;
+    }
+    
+    /**
+     * 距離原點 offset 的位置是否剛好是格點
+     */
+    private static boolean isOnLattice(double offset, double spacing) {
+        double index = offset / spacing;
+        return Math.abs(index - Math.rint(index)) <= LATTICE_EPSILON;
+    }
+    
+    /**
+     * 依視線角度調整半徑，加入每個顯示牆面的取樣圓盤
+     */
+    private void addViewAngleDiscs(
             Location playerLocation, 
             Vector playerDirection, 
             int renderDistance, 
-            double spacing, 
             double baseRadius,
-            double viewAngleEffect) {
-        
-        List<ClaimBoundary.WallPoint> points = new ArrayList<>();
+            double viewAngleEffect,
+            WallDiscs discs) {
         boolean isInside = boundary.isPlayerInside(playerLocation);
         
+        // 視線方向只取一次分量，之後每個牆面只做純量的內積運算
+        double dirX = playerDirection.getX();
+        double dirY = playerDirection.getY();
+        double dirZ = playerDirection.getZ();
+        double dirLengthSquared = dirX * dirX + dirY * dirY + dirZ * dirZ;
+        double px = playerLocation.getX();
+        double py = playerLocation.getY();
+        double pz = playerLocation.getZ();
+        
         if (isInside) {
             List<ClaimBoundary.WallFace> faces = boundary.getIntersectingFaces(playerLocation, renderDistance);
             for (ClaimBoundary.WallFace face : faces) {
                 Location nearestPoint = boundary.getNearestPointOnFace(playerLocation, face);
                 
-                // 計算視線與該點形成的角度
-                double angle = getAngleBetween(playerDirection, nearestPoint.clone().subtract(playerLocation).toVector());
+                // 計算視線與該點形成角度的餘弦
+                double cosine = viewCosine(dirX, dirY, dirZ, dirLengthSquared,
+                        nearestPoint.getX() - px, nearestPoint.getY() - py, nearestPoint.getZ() - pz);
                 
                 // 基於角度調整半徑 (0度使用全半徑，90度以上使用最小半徑)
-                double adjustedRadius = calculateRadiusFromAngle(baseRadius, angle, viewAngleEffect);
+                double adjustedRadius = calculateRadiusFromCosine(baseRadius, cosine, viewAngleEffect);
                 
-                points.addAll(getWallPointsInRadiusWithCorners(nearestPoint, adjustedRadius, face, spacing));
+                discs.add(face, nearestPoint.getX(), nearestPoint.getY(), nearestPoint.getZ(), adjustedRadius);
             }
         } else {
             // 當玩家在領地外：根據玩家與領地最近點關係判斷要顯示的牆面個數
@@ -447,46 +407,45 @@ public class WallPointGenerator {
             for (ClaimBoundary.WallFace face : candidateFaces) {
                 Location faceCenter = boundary.getNearestPointOnFace(playerLocation, face);
                 
-                // 計算視線與該點形成的角度
-                double angle = getAngleBetween(playerDirection, faceCenter.clone().subtract(playerLocation).toVector());
+                // 計算視線與該點形成角度的餘弦
+                double cosine = viewCosine(dirX, dirY, dirZ, dirLengthSquared,
+                        faceCenter.getX() - px, faceCenter.getY() - py, faceCenter.getZ() - pz);
                 
                 // 基於角度調整半徑
-                double adjustedRadius = calculateRadiusFromAngle(baseRadius, angle, viewAngleEffect);
+                double adjustedRadius = calculateRadiusFromCosine(baseRadius, cosine, viewAngleEffect);
                 
-                points.addAll(getWallPointsInRadiusWithCorners(faceCenter, adjustedRadius, face, spacing));
+                discs.add(face, faceCenter.getX(), faceCenter.getY(), faceCenter.getZ(), adjustedRadius);
             }
         }
-        
-        return points;
     }
 
     /**
-     * 計算兩個向量之間的角度（度數）
+     * 計算視線方向與指向目標的向量之間角度的餘弦，不建立任何向量物件
+     * @param dirLengthSquared 視線方向長度的平方
+     * @param dx 目標相對玩家的 X 位移
+     * @param dy 目標相對玩家的 Y 位移
+     * @param dz 目標相對玩家的 Z 位移
      */
-    private double getAngleBetween(Vector v1, Vector v2) {
-        // 確保向量已規一化
-        Vector normalized1 = v1.clone().normalize();
-        Vector normalized2 = v2.clone().normalize();
+    private static double viewCosine(double dirX, double dirY, double dirZ, double dirLengthSquared,
+                                     double dx, double dy, double dz) {
+        double lengths = Math.sqrt(dirLengthSquared * (dx * dx + dy * dy + dz * dz));
+        if (lengths == 0) return 1.0;
         
-        // 計算角度（弧度）
-        double dot = normalized1.dot(normalized2);
         // 限制在 [-1, 1] 範圍內
-        dot = Math.max(-1, Math.min(1, dot));
-        double angle = Math.acos(dot);
-        
-        // 轉換為度數
-        return Math.toDegrees(angle);
+        double cosine = (dirX * dx + dirY * dy + dirZ * dz) / lengths;
+        return Math.max(-1.0, Math.min(1.0, cosine));
     }
 
     /**
-     * 根據視線角度計算調整後的半徑
+     * 根據視線角度的餘弦計算調整後的半徑，每個圓盤只換算一次角度
      * @param baseRadius 基礎半徑
-     * @param angle 視線與目標點的角度（度數）
+     * @param cosine 視線與目標點角度的餘弦
      * @param effect 視角影響係數(0-1)
      * @return 調整後的半徑
      */
-    private double calculateRadiusFromAngle(double baseRadius, double angle, double effect) {
-        // 計算縮放係數：視線中心 100%，90度角減少到 (1-effect)%
+    private static double calculateRadiusFromCosine(double baseRadius, double cosine, double effect) {
+        // 計算縮放係數：視線中心 100%，隨角度線性減少，90度角以上減少到 (1-effect)%
+        double angle = Math.toDegrees(Math.acos(cosine));
         double scale = 1.0 - (Math.min(90.0, angle) / 90.0) * effect;
         return baseRadius * scale;
     }
@@ -599,38 +558,105 @@ public class WallPointGenerator {
         return new RayIntersection(intersection, face, t);
     }
     
+    
     /**
-     * 使用射線檢測與盒體交點的 WALL 模式渲染點生成
+     * 輸出 WALL 模式下射線檢測與視角兩種方法取樣範圍聯集內的粒子點
+     * 兩種方法常在同一個牆面產生重疊的圓盤，先收集所有圓盤再逐列合併格點區間，
+     * 同一個點只會輸出一次，不需要另外去除重複
      * @param playerLocation 玩家位置
      * @param playerDirection 玩家視線方向
      * @param renderDistance 渲染距離
      * @param spacing 粒子間距
      * @param wallRadius 牆面渲染半徑
-     * @return 牆面上的點列表（帶角落資訊）
+     * @param viewAngleEffect 視角影響係數(0-1)
+     * @param useRaycast 是否使用射線檢測方法
+     * @param useViewAngle 是否使用視角方法
+     * @param lod 依距離分級的取樣間距，為 null 時全部使用基本間距
+     * @param consumer 點接收器
      */
-    public List<ClaimBoundary.WallPoint> getWallModePointsWithRaycast(
+    public void forEachWallModePoint(
             Location playerLocation, 
             Vector playerDirection, 
             int renderDistance, 
             double spacing, 
-            double wallRadius) {
-            
-        List<ClaimBoundary.WallPoint> points = new ArrayList<>();
-        
+            double wallRadius,
+            double viewAngleEffect,
+            boolean useRaycast,
+            boolean useViewAngle,
+            SpacingLod lod,
+            PointConsumer consumer) {
+        WallDiscs discs = new WallDiscs();
+        if (useRaycast) {
+            addRaycastDisc(playerLocation, playerDirection, renderDistance, wallRadius, discs);
+        }
+        if (useViewAngle) {
+            addViewAngleDiscs(playerLocation, playerDirection, renderDistance, wallRadius, viewAngleEffect, discs);
+        }
+        rasterize(discs, spacing, lod, consumer);
+    }
+    
+    /**
+     * 以視線射線與盒體的交點為中心加入取樣圓盤
+     */
+    private void addRaycastDisc(Location playerLocation, Vector playerDirection, int renderDistance,
+                                double wallRadius, WallDiscs discs) {
         // 計算射線檢測結果
         RayIntersection intersection = calculateRayBoxIntersection(playerLocation, playerDirection);
         
         // 如果有有效的交點且在渲染距離內
         if (intersection != null && intersection.getDistance() <= renderDistance) {
             // 使用交點作為渲染中心
-            points.addAll(getWallPointsInRadiusWithCorners(
-                    intersection.getLocation(), 
-                    wallRadius, 
-                    intersection.getFace(), 
-                    spacing));
+            Location center = intersection.getLocation();
+            discs.add(intersection.getFace(), center.getX(), center.getY(), center.getZ(), wallRadius);
+        }
+    }
+    
+    /**
+     * 一個畫面中各牆面的取樣圓盤，以及逐列合併區間時使用的暫存陣列
+     * 每個圓盤以球心與半徑表示，投影到所在牆面後即為圓盤
+     */
+    private static final class WallDiscs {
+        private ClaimBoundary.WallFace[] faces = new ClaimBoundary.WallFace[8];
+        private double[] centerX = new double[8];
+        private double[] centerY = new double[8];
+        private double[] centerZ = new double[8];
+        private double[] radius = new double[8];
+        private int count;
+        
+        // 每個牆面的取樣間距，以 WallFace 序數索引
+        private final double[] faceSpacing = new double[FACES.length];
+        
+        // 單一牆面投影後的圓盤與單列的格點區間
+        private double[] planeU = new double[8];
+        private double[] planeV = new double[8];
+        private double[] planeRadiusSquared = new double[8];
+        private int[] intervalStart = new int[8];
+        private int[] intervalEnd = new int[8];
+        
+        private void add(ClaimBoundary.WallFace face, double x, double y, double z, double discRadius) {
+            if (discRadius <= 0) return;
+            if (count == faces.length) grow();
+            faces[count] = face;
+            centerX[count] = x;
+            centerY[count] = y;
+            centerZ[count] = z;
+            radius[count] = discRadius;
+            count++;
         }
         
-        return points;
+        private void grow() {
+            int capacity = faces.length * 2;
+            faces = Arrays.copyOf(faces, capacity);
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+            centerZ = Arrays.copyOf(centerZ, capacity);
+            radius = Arrays.copyOf(radius, capacity);
+            planeU = Arrays.copyOf(planeU, capacity);
+            planeV = Arrays.copyOf(planeV, capacity);
+            planeRadiusSquared = Arrays.copyOf(planeRadiusSquared, capacity);
+            intervalStart = Arrays.copyOf(intervalStart, capacity);
+            intervalEnd = Arrays.copyOf(intervalEnd, capacity);
+        }
     }
     
     /**
@@ -4,6 +4,8 @@ import dev.twme.claimVisualizer.ClaimVisualizer;
 import dev.twme.claimVisualizer.config.ConfigManager;
 import dev.twme.claimVisualizer.language.LanguageManager;
 import dev.twme.claimVisualizer.player.PlayerSession;
+import dev.twme.claimVisualizer.render.ParticleBudget;
+import dev.twme.claimVisualizer.render.QualityController;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -88,7 +90,7 @@ public class VisualizerCommand implements CommandExecutor, TabCompleter {
         }
 
         languageManager.setPlayerLanguage(player.getUniqueId(), langCode);
-        PlayerSession session = PlayerSession.getSession(player);
+        PlayerSession session = plugin.getSessionManager().getSession(player);
         session.setLanguage(langCode);
         
         player.sendMessage(languageManager.getMessage("command.language.changed", player));
@@ -107,8 +109,9 @@ public class VisualizerCommand implements CommandExecutor, TabCompleter {
         
         try {
             ConfigManager.DisplayMode mode = ConfigManager.DisplayMode.valueOf(args[1].toUpperCase());
-            PlayerSession session = PlayerSession.getSession(player);
+            PlayerSession session = plugin.getSessionManager().getSession(player);
             session.setDisplayMode(mode);
+            plugin.getViewerRegistry().update(player);
             
             // 使用佔位符而不是 append
             player.sendMessage(languageManager.getMessage("command.mode.set", player, mode));
@@ -136,6 +139,34 @@ public class VisualizerCommand implements CommandExecutor, TabCompleter {
                 } else {
                     player.sendMessage(languageManager.getMessage("command.debug.live_disabled", player));
                 }
+            } else if (args[1].equalsIgnoreCase("budget")) {
+                // 顯示全域粒子預算與最近一秒的使用狀況
+                ParticleBudget budget = plugin.getParticleRenderer().getParticleBudget();
+                String spawned = String.format("%.1f", budget.getSpawnedPerTick());
+                if (budget.isLimited()) {
+                    player.sendMessage(languageManager.getMessage("command.debug.budget", player,
+                            budget.getBudgetPerTick(), spawned,
+                            String.format("%.1f", budget.getUtilization() * 100.0),
+                            String.format("%.1f", budget.getDeferredPerTick()),
+                            budget.getDroppedPerSecond()));
+                } else {
+                    player.sendMessage(languageManager.getMessage("command.debug.budget_unlimited", player,
+                            spawned, budget.getDroppedPerSecond()));
+                }
+            } else if (args[1].equalsIgnoreCase("quality")) {
+                // 顯示自適應品質等級與目前套用的縮放倍率
+                ConfigManager configManager = plugin.getConfigManager();
+                QualityController qualityController = plugin.getParticleRenderer().getQualityController();
+                if (qualityController.isActive()) {
+                    player.sendMessage(languageManager.getMessage("command.debug.quality", player,
+                            configManager.getQualityLevel(), configManager.getQualityLevels(),
+                            String.format("%.1f", qualityController.getLastMspt()),
+                            String.format("%.2f", configManager.getSpacingMultiplier()),
+                            String.format("%.2f", configManager.getDistanceMultiplier()),
+                            String.format("%.2f", configManager.getIntervalMultiplier())));
+                } else {
+                    player.sendMessage(languageManager.getMessage("command.debug.quality_disabled", player));
+                }
             } else {
                 player.sendMessage(languageManager.getMessage("command.debug.usage", player));
             }
@@ -149,10 +180,11 @@ public class VisualizerCommand implements CommandExecutor, TabCompleter {
             player.sendMessage(languageManager.getMessage("command.no_permission", player));
             return;
         }
-
-        PlayerSession session = PlayerSession.getSession(player);
+        
+        PlayerSession session = plugin.getSessionManager().getSession(player);
         session.toggleVisualization();
-
+        plugin.getViewerRegistry().update(player);
+        
         if (session.isVisualizationEnabled()) {
             player.sendMessage(languageManager.getMessage("command.turn_on", player));
         } else {
@@ -165,25 +197,27 @@ public class VisualizerCommand implements CommandExecutor, TabCompleter {
             player.sendMessage(languageManager.getMessage("command.no_permission", player));
             return;
         }
-
-        PlayerSession session = PlayerSession.getSession(player);
+        
+        PlayerSession session = plugin.getSessionManager().getSession(player);
         if (session.isVisualizationEnabled()) {
             player.sendMessage(languageManager.getMessage("command.already_turn_on", player));
             return;
         }
 
         session.setVisualizationEnabled(true);
+        plugin.getViewerRegistry().update(player);
         player.sendMessage(languageManager.getMessage("command.turn_on", player));
     }
 
     private void disableVisualization(Player player) {
-        PlayerSession session = PlayerSession.getSession(player);
+        PlayerSession session = plugin.getSessionManager().getSession(player);
         if (!session.isVisualizationEnabled()) {
             player.sendMessage(languageManager.getMessage("command.already_turn_off", player));
             return;
         }
 
         session.setVisualizationEnabled(false);
+        plugin.getViewerRegistry().update(player);
         player.sendMessage(languageManager.getMessage("command.turn_off", player));
     }
 
@@ -215,6 +249,8 @@ public class VisualizerCommand implements CommandExecutor, TabCompleter {
         if (player.hasPermission("claimvisualizer.debug")) {
             player.sendMessage(languageManager.getMessage("command.help.debug", player));
             player.sendMessage(languageManager.getMessage("command.help.debug_live", player));
+            player.sendMessage(languageManager.getMessage("command.help.debug_budget", player));
+            player.sendMessage(languageManager.getMessage("command.help.debug_quality", player));
         }
         
         player.sendMessage(languageManager.getMessage("command.help.help", player));
@@ -256,7 +292,7 @@ public class VisualizerCommand implements CommandExecutor, TabCompleter {
                             .collect(Collectors.toList());
                 }
             } else if (args[0].equalsIgnoreCase("debug") && sender.hasPermission("claimvisualizer.debug")) {
-                return Arrays.asList("particles", "live").stream()
+                return Arrays.asList("particles", "live", "budget", "quality").stream()
                         .filter(s -> s.startsWith(args[1].toLowerCase()))
                         .collect(Collectors.toList());
             }
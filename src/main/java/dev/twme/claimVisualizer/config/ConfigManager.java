@@ -23,6 +23,27 @@ public class ConfigManager {
     
     private int maxClaims;
     private boolean asyncRendering;
+    private int renderThreads;
+    private double renderBudgetMs;
+    private int particleBudget;
+    private ParticleSinkType particleSinkType;
+    
+    // 自適應品質設定
+    private boolean adaptiveQuality;
+    private double degradeMspt;
+    private double recoverMspt;
+    private int qualityCheckInterval;
+    private int qualityLevels;
+    private double maxSpacingMultiplier;
+    private double minDistanceMultiplier;
+    private double maxIntervalMultiplier;
+    
+    // 依距離分級的取樣間距設定
+    private boolean lodEnabled;
+    private double[] lodTierDistances;
+    
+    // 目前品質等級 (qualityLevels = 設定值，0 = 最低品質)，主執行緒更新、渲染執行緒讀取
+    private volatile int qualityLevel = Integer.MAX_VALUE;
     private int cacheTime;
     private DisplayMode displayMode;
     private boolean showOwnClaims;
@@ -65,7 +86,36 @@ public class ConfigManager {
         // 載入性能設定
         maxClaims = config.getInt("performance.max-claims", 20);
         asyncRendering = config.getBoolean("performance.async-rendering", true);
-        cacheTime = config.getInt("performance.cache-time", 30);
+        renderThreads = config.getInt("performance.render-threads", 0);
+        renderBudgetMs = Math.max(0.0, config.getDouble("performance.render-budget-ms", 2.0));
+        particleBudget = config.getInt("performance.particle-budget", 0);
+        String sinkType = config.getString("performance.particle-sink", "BUKKIT");
+        try {
+            particleSinkType = ParticleSinkType.valueOf(sinkType.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("未知的粒子輸出方式: " + sinkType + "，改用 BUKKIT");
+            particleSinkType = ParticleSinkType.BUKKIT;
+        }
+        
+        // 載入自適應品質設定
+        adaptiveQuality = config.getBoolean("performance.adaptive-quality.enabled", false);
+        degradeMspt = config.getDouble("performance.adaptive-quality.degrade-mspt", 45.0);
+        recoverMspt = Math.min(degradeMspt, config.getDouble("performance.adaptive-quality.recover-mspt", 35.0));
+        qualityCheckInterval = Math.max(1, config.getInt("performance.adaptive-quality.check-interval", 40));
+        qualityLevels = Math.max(1, config.getInt("performance.adaptive-quality.levels", 4));
+        maxSpacingMultiplier = Math.max(1.0, config.getDouble("performance.adaptive-quality.max-spacing-multiplier", 2.0));
+        minDistanceMultiplier = Math.min(1.0, Math.max(0.1, config.getDouble("performance.adaptive-quality.min-distance-multiplier", 0.5)));
+        maxIntervalMultiplier = Math.max(1.0, config.getDouble("performance.adaptive-quality.max-interval-multiplier", 2.0));
+        qualityLevel = adaptiveQuality ? Math.min(qualityLevel, qualityLevels) : qualityLevels;
+        
+        // 載入距離分級間距設定
+        lodEnabled = config.getBoolean("performance.lod.enabled", false);
+        lodTierDistances = config.getDoubleList("performance.lod.tier-distances").stream()
+                .mapToDouble(Double::doubleValue)
+                .filter(distance -> distance > 0)
+                .sorted()
+                .toArray();
+        cacheTime = config.getInt("performance.cache-time", 300);
         
         // 載入顯示設定
         String mode = config.getString("display.mode", "OUTLINE");
@@ -136,6 +186,7 @@ public class ConfigManager {
                 settings.renderDistance = modeSection.getInt("render-distance", renderDistance);
                 settings.particleSpacing = modeSection.getDouble("spacing", particleSpacing);
                 settings.displayInterval = modeSection.getInt("display-interval", particleDisplayInterval);
+                settings.budgetWeight = Math.max(0.01, modeSection.getDouble("budget-weight", 1.0));
                 
                 // 載入模式特定的半徑設定
                 if (mode == DisplayMode.WALL) {
@@ -222,33 +273,30 @@ public class ConfigManager {
     
     // 向下相容方法
     public int getUpdateInterval() {
-        DisplayMode mode = getDisplayMode();
-        return modeSettings.containsKey(mode) ? modeSettings.get(mode).updateInterval : updateInterval;
+        return getUpdateInterval(getDisplayMode());
     }
     
     // 新增：獲取特定模式的更新間隔
     public int getUpdateInterval(DisplayMode mode) {
-        return modeSettings.containsKey(mode) ? modeSettings.get(mode).updateInterval : updateInterval;
+        return scaleInterval(modeSettings.containsKey(mode) ? modeSettings.get(mode).updateInterval : updateInterval);
     }
     
     public int getRenderDistance() {
-        DisplayMode mode = getDisplayMode();
-        return modeSettings.containsKey(mode) ? modeSettings.get(mode).renderDistance : renderDistance;
+        return getRenderDistance(getDisplayMode());
     }
     
     // 新增：獲取特定模式的渲染距離
     public int getRenderDistance(DisplayMode mode) {
-        return modeSettings.containsKey(mode) ? modeSettings.get(mode).renderDistance : renderDistance;
+        return scaleDistance(modeSettings.containsKey(mode) ? modeSettings.get(mode).renderDistance : renderDistance);
     }
     
     public double getParticleSpacing() {
-        DisplayMode mode = getDisplayMode();
-        return modeSettings.containsKey(mode) ? modeSettings.get(mode).particleSpacing : particleSpacing;
+        return getParticleSpacing(getDisplayMode());
     }
     
     // 新增：獲取特定模式的粒子間隔
     public double getParticleSpacing(DisplayMode mode) {
-        return modeSettings.containsKey(mode) ? modeSettings.get(mode).particleSpacing : particleSpacing;
+        return scaleSpacing(modeSettings.containsKey(mode) ? modeSettings.get(mode).particleSpacing : particleSpacing);
     }
     
     // 新增：獲取特定模式的粒子顯示間隔
@@ -256,6 +304,11 @@ public class ConfigManager {
         return modeSettings.containsKey(mode) ? modeSettings.get(mode).displayInterval : particleDisplayInterval;
     }
     
+    // 獲取特定模式在全域粒子預算中的分配權重
+    public double getBudgetWeight(DisplayMode mode) {
+        return modeSettings.containsKey(mode) ? modeSettings.get(mode).budgetWeight : 1.0;
+    }
+    
     public int getMaxClaims() {
         return maxClaims;
     }
@@ -264,6 +317,114 @@ public class ConfigManager {
         return asyncRendering;
     }
     
+    /**
+     * 取得非同步渲染執行緒數量，設定為 0 或以下時依 CPU 核心數自動決定
+     */
+    public int getRenderThreads() {
+        if (renderThreads > 0) {
+            return renderThreads;
+        }
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+    
+    /**
+     * 取得每 tick 在主執行緒渲染 (或擷取非同步渲染快照) 的時間預算 (毫秒)，0 表示不限制
+     */
+    public double getRenderBudgetMs() {
+        return renderBudgetMs;
+    }
+    
+    /**
+     * 取得每 tick 所有玩家合計可顯示的粒子數量，0 或以下表示不限制
+     */
+    public int getParticleBudget() {
+        return particleBudget;
+    }
+    
+    public boolean isAdaptiveQuality() {
+        return adaptiveQuality;
+    }
+    
+    /**
+     * 是否依距離分級放大取樣間距
+     */
+    public boolean isLodEnabled() {
+        return lodEnabled && lodTierDistances.length > 0;
+    }
+    
+    /**
+     * 取得由小到大排列的分級距離，每超過一級，間距加倍；呼叫者不可修改
+     */
+    public double[] getLodTierDistances() {
+        return lodTierDistances;
+    }
+    
+    public double getDegradeMspt() {
+        return degradeMspt;
+    }
+    
+    public double getRecoverMspt() {
+        return recoverMspt;
+    }
+    
+    public int getQualityCheckInterval() {
+        return qualityCheckInterval;
+    }
+    
+    public int getQualityLevels() {
+        return qualityLevels;
+    }
+    
+    public int getQualityLevel() {
+        return qualityLevel;
+    }
+    
+    /**
+     * 設定目前品質等級，之後讀取的間距、距離、半徑與更新間隔都會依等級縮放
+     */
+    public void setQualityLevel(int level) {
+        qualityLevel = Math.max(0, Math.min(qualityLevels, level));
+    }
+    
+    /**
+     * 目前品質等級下降的比例，0 = 使用設定值，1 = 最低品質
+     */
+    private double getQualityReduction() {
+        return 1.0 - (double) qualityLevel / qualityLevels;
+    }
+    
+    public double getSpacingMultiplier() {
+        return 1.0 + (maxSpacingMultiplier - 1.0) * getQualityReduction();
+    }
+    
+    public double getDistanceMultiplier() {
+        return 1.0 - (1.0 - minDistanceMultiplier) * getQualityReduction();
+    }
+    
+    public double getIntervalMultiplier() {
+        return 1.0 + (maxIntervalMultiplier - 1.0) * getQualityReduction();
+    }
+    
+    private double scaleSpacing(double spacing) {
+        return spacing * getSpacingMultiplier();
+    }
+    
+    private int scaleDistance(int distance) {
+        return Math.max(1, (int) Math.round(distance * getDistanceMultiplier()));
+    }
+    
+    private double scaleRadius(double radius) {
+        return radius * getDistanceMultiplier();
+    }
+    
+    private int scaleInterval(int interval) {
+        return Math.max(1, (int) Math.round(interval * getIntervalMultiplier()));
+    }
+    
+    public ParticleSinkType getParticleSinkType() {
+        return particleSinkType;
+    }
+    
     public int getCacheTime() {
         return cacheTime;
     }
@@ -289,20 +450,18 @@ public class ConfigManager {
     }
     
     public double getWallRadius() {
-        DisplayMode mode = DisplayMode.WALL;
-        return modeSettings.containsKey(mode) ? modeSettings.get(mode).radius : wallRadius;
+        return getRadius(DisplayMode.WALL);
     }
     
     public double getOutlineRadius() {
-        DisplayMode mode = DisplayMode.OUTLINE;
-        return modeSettings.containsKey(mode) ? modeSettings.get(mode).radius : outlineRadius;
+        return getRadius(DisplayMode.OUTLINE);
     }
     
     // 新增：獲取特定模式的半徑
     public double getRadius(DisplayMode mode) {
-        return modeSettings.containsKey(mode) ? modeSettings.get(mode).radius : 
+        return scaleRadius(modeSettings.containsKey(mode) ? modeSettings.get(mode).radius : 
                (mode == DisplayMode.WALL ? wallRadius : 
-               (mode == DisplayMode.OUTLINE ? outlineRadius : 5.0));
+               (mode == DisplayMode.OUTLINE ? outlineRadius : 5.0)));
     }
     
     public int getParticleDisplayInterval() {
@@ -429,6 +588,12 @@ public class ConfigManager {
         OUTLINE, FULL, WALL
     }
     
+    // 粒子輸出方式
+    public enum ParticleSinkType {
+        BUKKIT,     // 每個粒子各自送出
+        COALESCING  // 同一批中重疊的粒子只送出一次
+    }
+    
     public enum ClaimPart {
         BOTTOM("bottom"),   // 底部邊框
         TOP("top"),         // 頂部邊框
@@ -467,6 +632,7 @@ public class ConfigManager {
         public double viewAngleEffect = 0.6;  // 視角效果強度 (0-1)
         private boolean useRaycastMethod = true;   // 是否使用射線渲染方法
         private boolean useViewAngleMethod = true; // 是否使用視角渲染方法
+        private double budgetWeight = 1.0;         // 粒子預算分配權重
         
         public int getUpdateInterval() {
             return updateInterval;
@@ -539,6 +705,10 @@ public class ConfigManager {
         public boolean isUseViewAngleMethod() {
             return useViewAngleMethod;
         }
+        
+        public double getBudgetWeight() {
+            return budgetWeight;
+        }
     }
     
     public static class ParticleSettings {
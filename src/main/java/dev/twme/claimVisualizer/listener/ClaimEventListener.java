@@ -0,0 +1,81 @@
+package dev.twme.claimVisualizer.listener;
+
+import com.griefdefender.api.GriefDefender;
+import com.griefdefender.api.claim.Claim;
+import com.griefdefender.api.event.ChangeClaimEvent;
+import com.griefdefender.api.event.ClaimEvent;
+import com.griefdefender.api.event.CreateClaimEvent;
+import com.griefdefender.api.event.RemoveClaimEvent;
+import com.griefdefender.api.event.TransferClaimEvent;
+import dev.twme.claimVisualizer.ClaimVisualizer;
+import net.kyori.event.EventSubscriber;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * GriefDefender 領地事件監聽器 - 將領地的建立、調整、刪除與轉移即時套用到領地快取
+ */
+public class ClaimEventListener {
+
+    private final ClaimVisualizer plugin;
+    private final List<EventSubscriber<?>> subscribers = new ArrayList<>();
+
+    public ClaimEventListener(ClaimVisualizer plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 向 GriefDefender 事件匯流排註冊監聽
+     */
+    public void register() {
+        subscribe(CreateClaimEvent.class);
+        subscribe(ChangeClaimEvent.class);
+        subscribe(RemoveClaimEvent.class);
+        subscribe(TransferClaimEvent.class);
+    }
+
+    /**
+     * 取消所有已註冊的監聽
+     */
+    public void unregister() {
+        for (EventSubscriber<?> subscriber : subscribers) {
+            GriefDefender.getEventManager().getBus().unregister(subscriber);
+        }
+        subscribers.clear();
+    }
+
+    private <T extends ClaimEvent> void subscribe(Class<T> eventClass) {
+        EventSubscriber<T> subscriber = this::handleClaimEvent;
+        GriefDefender.getEventManager().getBus().subscribe(eventClass, subscriber);
+        subscribers.add(subscriber);
+    }
+
+    private void handleClaimEvent(ClaimEvent event) {
+        // 依世界收集受影響的領地 (含子領地)，刪除父領地時子領地也會一併消失
+        Map<UUID, Set<UUID>> affectedClaims = new LinkedHashMap<>();
+        for (Claim claim : event.getClaims()) {
+            affectedClaims.computeIfAbsent(claim.getWorldUniqueId(), id -> new LinkedHashSet<>()).add(claim.getUniqueId());
+            for (Claim child : claim.getChildren(true)) {
+                affectedClaims.computeIfAbsent(child.getWorldUniqueId(), id -> new LinkedHashSet<>()).add(child.getUniqueId());
+            }
+        }
+
+        if (affectedClaims.isEmpty()) {
+            return;
+        }
+
+        // 事件在變更套用前觸發且可能被取消，因此延到下一刻再依實際狀態更新快取
+        // 每個世界的所有變更一次套用，只產生一個新快照
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            for (Map.Entry<UUID, Set<UUID>> entry : affectedClaims.entrySet()) {
+                plugin.getClaimManager().refreshClaims(entry.getKey(), entry.getValue());
+            }
+        });
+    }
+}
@@ -3,6 +3,7 @@ package dev.twme.claimVisualizer.listener;
 import dev.twme.claimVisualizer.ClaimVisualizer;
 import dev.twme.claimVisualizer.player.PlayerSession;
 import dev.twme.claimVisualizer.render.ParticleRenderer;
+import dev.twme.claimVisualizer.render.RenderReason;
 import org.bukkit.ChatColor;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -34,7 +35,9 @@ public class EventListener implements Listener {
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         // 初始化玩家會話
-        PlayerSession session = PlayerSession.getSession(event.getPlayer());
+        PlayerSession session = plugin.getSessionManager().getSession(event.getPlayer());
+        plugin.getViewerRegistry().update(event.getPlayer());
+        
         // 檢查目標世界是否支援 GriefDefender
         if (!plugin.getClaimManager().isWorldEnabled(event.getPlayer().getWorld())) {
             return;
@@ -46,8 +49,7 @@ public class EventListener implements Listener {
         session.setLanguage(plugin.getLanguageManager().getPlayerLanguage(event.getPlayer().getUniqueId()));
         
         // 確認玩家已啟用視覺化，並有權限
-        if (!session.isVisualizationEnabled() || 
-            !event.getPlayer().hasPermission("claimvisualizer.use")) {
+        if (!plugin.getViewerRegistry().isViewing(event.getPlayer().getUniqueId())) {
             return;
         }
         
@@ -55,8 +57,8 @@ public class EventListener implements Listener {
         int delay = plugin.getConfigManager().getLoginDelay();
         plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
             if (event.getPlayer().isOnline() && session.isVisualizationEnabled()) {
-                renderer.renderClaims(event.getPlayer());
-
+                renderer.markDirty(event.getPlayer(), RenderReason.JOIN, 0);
+                
                 // 發送提示訊息，使用多語言系統
                 event.getPlayer().sendMessage(plugin.getLanguageManager().getMessage("command.auto_enable", event.getPlayer()));
                 event.getPlayer().sendMessage(plugin.getLanguageManager().getMessage("command.help.toggle_hint", event.getPlayer()));
@@ -67,7 +69,9 @@ public class EventListener implements Listener {
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         // 清理玩家會話
-        PlayerSession.removeSession(event.getPlayer().getUniqueId());
+        plugin.getViewerRegistry().remove(event.getPlayer().getUniqueId());
+        plugin.getSessionManager().removeSession(event.getPlayer().getUniqueId());
+        renderer.clearPlayerData(event.getPlayer().getUniqueId());
     }
     
     @EventHandler
@@ -76,7 +80,7 @@ public class EventListener implements Listener {
         String locale = event.getLocale();
         plugin.getLanguageManager().setPlayerLanguage(event.getPlayer().getUniqueId(), locale);
         
-        PlayerSession session = PlayerSession.getSession(event.getPlayer());
+        PlayerSession session = plugin.getSessionManager().getSession(event.getPlayer());
         session.setLanguage(plugin.getLanguageManager().getPlayerLanguage(event.getPlayer().getUniqueId()));
     }
     
@@ -94,14 +98,13 @@ public class EventListener implements Listener {
             return;
         }
         
-        PlayerSession session = PlayerSession.getSession(event.getPlayer());
-        
         // 確認玩家已啟用視覺化，並有權限
-        if (!session.isVisualizationEnabled() || 
-            !event.getPlayer().hasPermission("claimvisualizer.use")) {
+        if (!plugin.getViewerRegistry().isViewing(event.getPlayer().getUniqueId())) {
             return;
         }
         
+        PlayerSession session = plugin.getSessionManager().getSession(event.getPlayer());
+        
         // 限制更新頻率，避免過於頻繁的更新
         long currentTime = System.currentTimeMillis();
         if (currentTime - session.getLastUpdateTime() < MOVE_UPDATE_THRESHOLD) {
@@ -110,12 +113,8 @@ public class EventListener implements Listener {
         
         session.updateLastUpdateTime();
         
-        // 在下一個遊戲刻更新領地顯示
-        plugin.getServer().getScheduler().runTask(plugin, () -> {
-            if (session.isVisualizationEnabled()) {
-                renderer.renderClaims(event.getPlayer());
-            }
-        });
+        // 由下一次渲染任務更新領地顯示
+        renderer.markDirty(event.getPlayer(), RenderReason.MOVE, 0);
     }
 
     /**
@@ -123,26 +122,22 @@ public class EventListener implements Listener {
      */
     @EventHandler
     public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        // 權限可能因世界而不同，重新檢查觀看者狀態
+        boolean viewing = plugin.getViewerRegistry().update(event.getPlayer());
+        
         // 檢查目標世界是否支援 GriefDefender
         if (!plugin.getClaimManager().isWorldEnabled(event.getPlayer().getWorld())) {
             return;
         }
         
-        PlayerSession session = PlayerSession.getSession(event.getPlayer());
-        
         // 確認玩家已啟用視覺化，並有權限
-        if (!session.isVisualizationEnabled() || 
-            !event.getPlayer().hasPermission("claimvisualizer.use")) {
+        if (!viewing) {
             return;
         }
         
         // 使用延遲時間顯示領地
         int delay = plugin.getConfigManager().getWorldChangeDelay();
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (event.getPlayer().isOnline() && session.isVisualizationEnabled()) {
-                renderer.renderClaims(event.getPlayer());
-            }
-        }, delay);
+        renderer.markDirty(event.getPlayer(), RenderReason.WORLD_CHANGE, delay);
     }
     
     @EventHandler
@@ -152,11 +147,8 @@ public class EventListener implements Listener {
             return;
         }
         
-        PlayerSession session = PlayerSession.getSession(event.getPlayer());
-        
         // 確認玩家已啟用視覺化，並有權限
-        if (!session.isVisualizationEnabled() || 
-            !event.getPlayer().hasPermission("claimvisualizer.use")) {
+        if (!plugin.getViewerRegistry().isViewing(event.getPlayer().getUniqueId())) {
             return;
         }
         
@@ -164,17 +156,13 @@ public class EventListener implements Listener {
         int delay = plugin.getConfigManager().getWorldChangeDelay();
         
         // 傳送後更新領地顯示
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (session.isVisualizationEnabled()) {
-                renderer.renderClaims(event.getPlayer());
-            }
-        }, delay); // 使用設定的延遲時間
+        renderer.markDirty(event.getPlayer(), RenderReason.TELEPORT, delay);
     }
     
     @EventHandler
     public void onWorldLoad(WorldLoadEvent event) {
-        // 當世界載入時，重置該世界的領地快取
-        plugin.getClaimManager().clearCache(event.getWorld());
+        // 當世界載入時，在背景重新建立該世界的領地快照
+        plugin.getClaimManager().requestRebuild(event.getWorld());
     }
     
     @EventHandler
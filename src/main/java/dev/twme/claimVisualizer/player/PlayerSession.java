@@ -1,25 +1,41 @@
 package dev.twme.claimVisualizer.player;
 
 import dev.twme.claimVisualizer.config.ConfigManager;
-import org.bukkit.entity.Player;
+import dev.twme.claimVisualizer.render.ParticleBuffer;
+import dev.twme.claimVisualizer.render.PlayerRenderSnapshot;
+import dev.twme.claimVisualizer.render.PlayerRenderState;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class PlayerSession {
-
-    private static final Map<UUID, PlayerSession> sessions = new HashMap<>();
     
     private final UUID playerId;
-    private boolean visualizationEnabled;
+    private volatile boolean visualizationEnabled;
     private long lastUpdateTime;
     // 玩家自訂的粒子顯示模式 (若為 null 表示使用預設設定)
-    private ConfigManager.DisplayMode displayMode;
+    private volatile ConfigManager.DisplayMode displayMode;
     // 玩家語言設定
-    private String language;
+    private volatile String language;
+    
+    // 上一個畫面的指紋與各領地的粒子，渲染執行緒以此物件同步
+    private final PlayerRenderState renderState = new PlayerRenderState();
+    
+    // 可重複使用的閒置粒子緩衝區，渲染執行緒取用、主執行緒歸還
+    private final Queue<ParticleBuffer> bufferPool = new ConcurrentLinkedQueue<>();
+    
+    // 最近一次渲染的伺服器 tick，只在主執行緒使用
+    private int lastRenderTick = Integer.MIN_VALUE;
+    
+    // 已排入渲染執行緒池但尚未開始計算的快照，重複請求只保留最新的一個
+    private final AtomicReference<PlayerRenderSnapshot> pendingView = new AtomicReference<>();
+    
+    // 渲染執行緒是否正在計算此玩家的畫面
+    private volatile boolean rendering;
     
-    private PlayerSession(UUID playerId) {
+    PlayerSession(UUID playerId) {
         this.playerId = playerId;
         this.visualizationEnabled = false;
         this.lastUpdateTime = System.currentTimeMillis();
@@ -27,22 +43,6 @@ public class PlayerSession {
         this.language = "en"; // 預設語言
     }
     
-    public static PlayerSession getSession(Player player) {
-        UUID playerId = player.getUniqueId();
-        if (!sessions.containsKey(playerId)) {
-            sessions.put(playerId, new PlayerSession(playerId));
-        }
-        return sessions.get(playerId);
-    }
-    
-    public static void removeSession(UUID playerId) {
-        sessions.remove(playerId);
-    }
-    
-    public static void cleanupSessions() {
-        sessions.clear();
-    }
-    
     public boolean isVisualizationEnabled() {
         return visualizationEnabled;
     }
@@ -77,6 +77,14 @@ public class PlayerSession {
         this.lastUpdateTime = System.currentTimeMillis();
     }
     
+    /**
+     * 取得玩家實際使用的顯示模式，未自訂時使用預設模式
+     */
+    public ConfigManager.DisplayMode getDisplayMode(ConfigManager.DisplayMode defaultMode) {
+        ConfigManager.DisplayMode mode = displayMode;
+        return mode != null ? mode : defaultMode;
+    }
+    
     /**
      * 取得玩家語言設定
      */
@@ -90,4 +98,66 @@ public class PlayerSession {
     public void setLanguage(String language) {
         this.language = language;
     }
+    
+    /**
+     * 取得上一個畫面的渲染狀態，使用前必須以此物件同步
+     */
+    public PlayerRenderState getRenderState() {
+        return renderState;
+    }
+    
+    /**
+     * 取得閒置粒子緩衝區池，可在任何執行緒使用
+     */
+    public Queue<ParticleBuffer> getBufferPool() {
+        return bufferPool;
+    }
+    
+    /**
+     * 記錄玩家在指定 tick 渲染，同一 tick 已渲染過時回傳 false，只在主執行緒呼叫
+     */
+    public boolean beginRenderTick(int currentTick) {
+        if (lastRenderTick == currentTick) return false;
+        lastRenderTick = currentTick;
+        return true;
+    }
+    
+    /**
+     * 排入等待非同步計算的快照
+     * @return 先前尚未開始計算的快照，沒有時回傳 null
+     */
+    public PlayerRenderSnapshot offerPendingView(PlayerRenderSnapshot view) {
+        return pendingView.getAndSet(view);
+    }
+    
+    /**
+     * 在渲染執行緒開始計算畫面，標記為計算中並取出等待中的快照
+     * 先標記再取出，確保主執行緒不會在兩者之間重複排入
+     * @return 等待中的快照，已被取消時回傳 null
+     */
+    public PlayerRenderSnapshot beginRenderJob() {
+        rendering = true;
+        return pendingView.getAndSet(null);
+    }
+    
+    /**
+     * 結束渲染執行緒的計算
+     */
+    public void endRenderJob() {
+        rendering = false;
+    }
+    
+    /**
+     * 是否正在計算畫面
+     */
+    public boolean isRenderJobInFlight() {
+        return rendering;
+    }
+    
+    /**
+     * 捨棄尚未開始計算的快照
+     */
+    public void cancelPendingView() {
+        pendingView.set(null);
+    }
 }
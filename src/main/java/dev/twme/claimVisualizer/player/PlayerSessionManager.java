@@ -0,0 +1,48 @@
+package dev.twme.claimVisualizer.player;
+
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 玩家會話管理器 - 保存所有線上玩家的會話
+ * 會話由主執行緒建立與移除，渲染執行緒透過玩家渲染快照取得會話，
+ * 以併發映射表保存，可在任何執行緒讀取
+ */
+public class PlayerSessionManager {
+    
+    private final Map<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
+    
+    /**
+     * 取得玩家的會話，不存在時建立
+     */
+    public PlayerSession getSession(Player player) {
+        return sessions.computeIfAbsent(player.getUniqueId(), PlayerSession::new);
+    }
+    
+    /**
+     * 取得玩家的會話，不存在時回傳 null
+     */
+    public PlayerSession getSession(UUID playerId) {
+        return sessions.get(playerId);
+    }
+    
+    /**
+     * 取得所有會話 (唯讀)
+     */
+    public Collection<PlayerSession> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+    
+    public void removeSession(UUID playerId) {
+        sessions.remove(playerId);
+    }
+    
+    public void cleanupSessions() {
+        sessions.clear();
+    }
+}
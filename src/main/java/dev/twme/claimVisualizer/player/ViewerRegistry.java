@@ -0,0 +1,253 @@
+package dev.twme.claimVisualizer.player;
+
+import dev.twme.claimVisualizer.ClaimVisualizer;
+import dev.twme.claimVisualizer.config.ConfigManager;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 觀看者註冊表 - 依顯示模式記錄目前正在觀看領地邊界的玩家
+ * 只有已啟用視覺化且具有使用權限的玩家才會列入，渲染與顯示任務只走訪這些玩家，
+ * 不必每個畫面對所有線上玩家查詢會話與權限
+ * 權限檢查結果會被快取，於登入、切換開關、變更模式、切換世界時更新，
+ * 另以低頻率的任務重新檢查已啟用的玩家，反映執行期間的權限變更
+ * 每位觀看者在加入或變更模式時取得該模式的下一個渲染相位，讓同一模式的玩家分散在更新間隔內的不同 tick
+ * 只在主執行緒使用
+ */
+public class ViewerRegistry {
+    
+    // 使用權限節點
+    private static final String USE_PERMISSION = "claimvisualizer.use";
+    
+    // 重新檢查權限的間隔 (tick)
+    private static final long PERMISSION_CHECK_INTERVAL = 100L;
+    
+    private final ClaimVisualizer plugin;
+    
+    // 已啟用視覺化的玩家 (不論權限)，權限重新檢查只走訪這些玩家
+    private final Map<UUID, Player> enabledPlayers = new HashMap<>();
+    
+    // 每種顯示模式的觀看者
+    private final Map<ConfigManager.DisplayMode, Map<UUID, Viewer>> viewers = new EnumMap<>(ConfigManager.DisplayMode.class);
+    private final Map<ConfigManager.DisplayMode, Collection<Viewer>> viewerViews = new EnumMap<>(ConfigManager.DisplayMode.class);
+    
+    // 每位觀看者目前的顯示模式
+    private final Map<UUID, ConfigManager.DisplayMode> viewerModes = new HashMap<>();
+    
+    // 每種顯示模式下一位觀看者的相位，依序遞增，使相位在任何更新間隔內都平均分布
+    private final int[] nextPhases = new int[ConfigManager.DisplayMode.values().length];
+    
+    private BukkitTask permissionCheckTask;
+    
+    // 觀看者從無到有時呼叫，讓已暫停的渲染排程恢復執行
+    private Runnable activationListener;
+    
+    public ViewerRegistry(ClaimVisualizer plugin) {
+        this.plugin = plugin;
+        
+        for (ConfigManager.DisplayMode mode : ConfigManager.DisplayMode.values()) {
+            Map<UUID, Viewer> modeViewers = new LinkedHashMap<>();
+            viewers.put(mode, modeViewers);
+            viewerViews.put(mode, Collections.unmodifiableCollection(modeViewers.values()));
+        }
+    }
+    
+    /**
+     * 設定觀看者從無到有時呼叫的監聽器
+     */
+    public void setActivationListener(Runnable activationListener) {
+        this.activationListener = activationListener;
+    }
+    
+    /**
+     * 啟動權限重新檢查任務
+     */
+    public void start() {
+        stop();
+        
+        permissionCheckTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                recheckPermissions();
+            }
+        }.runTaskTimer(plugin, PERMISSION_CHECK_INTERVAL, PERMISSION_CHECK_INTERVAL);
+    }
+    
+    /**
+     * 停止權限重新檢查任務並清空註冊表
+     */
+    public void stop() {
+        if (permissionCheckTask != null) {
+            permissionCheckTask.cancel();
+            permissionCheckTask = null;
+        }
+        
+        clear();
+    }
+    
+    /**
+     * 依玩家目前的會話狀態與權限更新註冊表
+     * 切換開關、變更模式、登入與切換世界後呼叫
+     * @return 玩家更新後是否為觀看者
+     */
+    public boolean update(Player player) {
+        UUID playerId = player.getUniqueId();
+        PlayerSession session = plugin.getSessionManager().getSession(player);
+        if (!session.isVisualizationEnabled() || !player.isOnline()) {
+            remove(playerId);
+            return false;
+        }
+        
+        enabledPlayers.put(playerId, player);
+        if (!player.hasPermission(USE_PERMISSION)) {
+            removeViewer(playerId);
+            return false;
+        }
+        
+        // 未自訂模式的玩家使用目前的預設模式
+        ConfigManager.DisplayMode mode = session.getDisplayMode(plugin.getConfigManager().getDisplayMode());
+        boolean wasEmpty = viewerModes.isEmpty();
+        ConfigManager.DisplayMode previous = viewerModes.put(playerId, mode);
+        if (previous == mode) {
+            // 模式未變時保留原本的相位
+            Viewer viewer = viewers.get(mode).get(playerId);
+            if (viewer.player != player) {
+                viewers.get(mode).put(playerId, new Viewer(player, viewer.phase));
+            }
+        } else {
+            // 新的觀看者或變更模式時，在新模式中重新指派相位
+            if (previous != null) {
+                viewers.get(previous).remove(playerId);
+            }
+            viewers.get(mode).put(playerId, new Viewer(player, nextPhase(mode)));
+        }
+        
+        if (wasEmpty && activationListener != null) {
+            activationListener.run();
+        }
+        return true;
+    }
+    
+    /**
+     * 重新計算所有線上玩家的狀態，設定重新載入 (預設模式可能改變) 後呼叫
+     */
+    public void refreshAll() {
+        clear();
+        
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            update(player);
+        }
+    }
+    
+    private void clear() {
+        enabledPlayers.clear();
+        viewerModes.clear();
+        for (Map<UUID, Viewer> modeViewers : viewers.values()) {
+            modeViewers.clear();
+        }
+        Arrays.fill(nextPhases, 0);
+    }
+    
+    private int nextPhase(ConfigManager.DisplayMode mode) {
+        int phase = nextPhases[mode.ordinal()];
+        nextPhases[mode.ordinal()] = (phase + 1) & Integer.MAX_VALUE;
+        return phase;
+    }
+    
+    /**
+     * 從註冊表移除玩家，玩家離線時呼叫
+     */
+    public void remove(UUID playerId) {
+        enabledPlayers.remove(playerId);
+        removeViewer(playerId);
+    }
+    
+    private void removeViewer(UUID playerId) {
+        ConfigManager.DisplayMode mode = viewerModes.remove(playerId);
+        if (mode != null) {
+            viewers.get(mode).remove(playerId);
+        }
+    }
+    
+    /**
+     * 重新檢查已啟用玩家的權限，權限被授予或撤銷時更新觀看者
+     */
+    private void recheckPermissions() {
+        if (enabledPlayers.isEmpty()) return;
+        
+        // update 可能移除已離線的玩家，先複製再走訪
+        for (Player player : enabledPlayers.values().toArray(new Player[0])) {
+            boolean permitted = player.hasPermission(USE_PERMISSION);
+            if (permitted != viewerModes.containsKey(player.getUniqueId())) {
+                update(player);
+            }
+        }
+    }
+    
+    /**
+     * 取得使用指定顯示模式的觀看者 (唯讀)，走訪期間不可更新註冊表
+     */
+    public Collection<Viewer> getViewers(ConfigManager.DisplayMode mode) {
+        return viewerViews.get(mode);
+    }
+    
+    /**
+     * 取得觀看者，玩家不是觀看者時回傳 null
+     */
+    public Player getViewer(UUID playerId) {
+        ConfigManager.DisplayMode mode = viewerModes.get(playerId);
+        return mode != null ? viewers.get(mode).get(playerId).player : null;
+    }
+    
+    /**
+     * 取得觀看者目前的顯示模式，玩家不是觀看者時回傳 null
+     */
+    public ConfigManager.DisplayMode getViewerMode(UUID playerId) {
+        return viewerModes.get(playerId);
+    }
+    
+    /**
+     * 玩家是否為觀看者 (已啟用視覺化且具有使用權限)
+     */
+    public boolean isViewing(UUID playerId) {
+        return viewerModes.containsKey(playerId);
+    }
+    
+    /**
+     * 是否有任何觀看者
+     */
+    public boolean hasViewers() {
+        return !viewerModes.isEmpty();
+    }
+    
+    /**
+     * 觀看者與其在顯示模式更新間隔內的渲染相位
+     */
+    public static final class Viewer {
+        private final Player player;
+        private final int phase;
+        
+        private Viewer(Player player, int phase) {
+            this.player = player;
+            this.phase = phase;
+        }
+        
+        public Player getPlayer() {
+            return player;
+        }
+        
+        public int getPhase() {
+            return phase;
+        }
+    }
+}
@@ -1,396 +1,146 @@
 package dev.twme.claimVisualizer.render;
 
 import dev.twme.claimVisualizer.ClaimVisualizer;
-import dev.twme.claimVisualizer.claim.ClaimBoundary;
-import dev.twme.claimVisualizer.claim.ClaimManager;
 import dev.twme.claimVisualizer.config.ConfigManager;
-import org.bukkit.Location;
-import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.util.Vector;
-import org.bukkit.Color;
+import dev.twme.claimVisualizer.player.PlayerSession;
+import dev.twme.claimVisualizer.player.PlayerSessionManager;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.Map;
-import java.util.HashMap;
-import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 非同步渲染管理器 - 負責處理非同步渲染領地粒子
+ * 使用專屬的固定大小執行緒池，每種模式的所有玩家以一個批次處理
+ * 等待中的快照與計算中的狀態保存在各玩家的會話，不另外以映射表追蹤
  */
 public class AsyncRenderManager {
     private final ClaimVisualizer plugin;
-    private final ClaimManager claimManager;
     private final ConfigManager configManager;
+    private final PlayerSessionManager sessionManager;
+    private final RenderEngine renderEngine;
     private final ParticleQueueManager queueManager;
-    private final ParticleStatisticsManager statisticsManager;
     
-    public AsyncRenderManager(ClaimVisualizer plugin, ClaimManager claimManager, 
-                              ParticleQueueManager queueManager, ParticleStatisticsManager statisticsManager) {
+    // 執行緒池最多排隊的工作數，超過時捨棄新的批次
+    private static final int MAX_QUEUED_JOBS = 64;
+    
+    // 渲染執行緒池，啟動渲染任務時依設定建立
+    private ExecutorService renderExecutor;
+    private int parallelism = 1;
+    
+    public AsyncRenderManager(ClaimVisualizer plugin, RenderEngine renderEngine, ParticleQueueManager queueManager) {
         this.plugin = plugin;
-        this.claimManager = claimManager;
         this.configManager = plugin.getConfigManager();
+        this.sessionManager = plugin.getSessionManager();
+        this.renderEngine = renderEngine;
         this.queueManager = queueManager;
-        this.statisticsManager = statisticsManager;
     }
     
     /**
-     * 非同步渲染領地粒子，使用指定顯示模式
+     * 依目前設定建立渲染執行緒池
      */
-    public void renderClaimsAsync(Player player, ConfigManager.DisplayMode mode) {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                Set<ClaimBoundary> claims = claimManager.getNearbyClaims(player);
-                double spacing = configManager.getParticleSpacing(mode);
-                int renderDistance = configManager.getRenderDistance(mode);
-                int playerY = player.getLocation().getBlockY();
-                
-                List<ParticleData> allParticles = new ArrayList<>();
-                
-                for (ClaimBoundary claim : claims) {
-                    if (mode == ConfigManager.DisplayMode.OUTLINE) {
-                        double outlineRadius = configManager.getRadius(mode);
-                        
-                        // 使用輪廓框架的粒子設定
-                        for (ConfigManager.ClaimPart part : ConfigManager.ClaimPart.values()) {
-                            ConfigManager.ParticleSettings particleSettings = 
-                                    configManager.getParticleSettings(claim.getType(), part);
-                            
-                            List<Location> points;
-                            if (part == ConfigManager.ClaimPart.VERTICAL) {
-                                // 修正：使用 getOutlineNearbyPoints 代替不存在的 getVerticalLines 方法
-                                points = claim.getOutlineNearbyPoints(player.getLocation(), renderDistance, spacing, outlineRadius);
-                            } else {
-                                // 對於水平線和底部，使用原始方法
-                                points = claim.getPointsForPart(part, spacing, playerY);
-                            }
-                            
-                            for (Location loc : points) {
-                                if (isInPlayerViewDirection(player, loc)) {
-                                    allParticles.add(new ParticleData(particleSettings.getParticle(), loc, particleSettings.getColor()));
-                                }
-                            }
-                        }
-                    } else if (mode == ConfigManager.DisplayMode.WALL) {
-                        // 使用模式特定的牆面半徑
-                        double wallRadius = configManager.getRadius(mode);
-                        
-                        // 獲取 WALL 模式的增強設定
-                        boolean adaptiveDensity = configManager.isWallAdaptiveDensity();
-                        double focusFactor = configManager.getWallFocusFactor();
-                        double fadeDistance = configManager.getWallFadeDistance();
-                        double edgeEmphasis = configManager.getWallEdgeEmphasis();
-                        boolean waveEffect = configManager.isWallWaveEffect();
-                        double waveSpeed = configManager.getWallWaveSpeed();
-                        double waveIntensity = configManager.getWallWaveIntensity();
-                        double viewAngleEffect = configManager.getWallViewAngleEffect();
-                        boolean useRaycastMethod = configManager.isWallUseRaycastMethod();
-                        boolean useViewAngleMethod = configManager.isWallUseViewAngleMethod();
-                        
-                        // 玩家視線方向向量
-                        Vector playerDirection = player.getLocation().getDirection();
-                        
-                        // 取得當前時間戳用於波浪效果
-                        long currentTimeMillis = System.currentTimeMillis();
-                        
-                        // 獲取粒子設定
-                        ConfigManager.ParticleSettings horizontalSettings = 
-                                configManager.getParticleSettings(claim.getType(), ConfigManager.ClaimPart.HORIZONTAL);
-                        ConfigManager.ParticleSettings verticalSettings = 
-                                configManager.getParticleSettings(claim.getType(), ConfigManager.ClaimPart.VERTICAL);
-                        ConfigManager.ParticleSettings cornerSettings = 
-                                configManager.getParticleSettings(claim.getType(), ConfigManager.ClaimPart.TOP);
-                        
-                        // 收集兩種方法產生的所有點
-                        List<ClaimBoundary.WallPoint> raycastPoints = new ArrayList<>();
-                        List<ClaimBoundary.WallPoint> viewAnglePoints = new ArrayList<>();
-                        
-                        // 使用視線射線檢測的方法
-                        if (useRaycastMethod) {
-                            raycastPoints.addAll(claim.getWallModePointsWithRaycast(
-                                    player.getLocation(), playerDirection, renderDistance, spacing, wallRadius));
-                        }
-                                
-                        // 使用基於最近點和視角的方法
-                        if (useViewAngleMethod) {
-                            viewAnglePoints.addAll(claim.getWallModePointsWithViewAngle(
-                                    player.getLocation(), playerDirection, renderDistance, spacing, wallRadius, viewAngleEffect));
-                        }
-                        
-                        // 合併並去除重複點
-                        List<ClaimBoundary.WallPoint> points = removeDuplicateWallPoints(raycastPoints, viewAnglePoints);
-                        
-                        for (ClaimBoundary.WallPoint point : points) {
-                            Location loc = point.getLocation();
-                            if (isInPlayerViewDirection(player, loc)) {
-                                // 自適應密度：根據距離決定是否渲染
-                                if (adaptiveDensity) {
-                                    double distance = player.getLocation().distance(loc);
-                                    double maxDistance = configManager.getRenderDistance(mode);
-                                    double relativeDistance = distance / maxDistance;
-                                    
-                                    // 根據距離計算渲染機率
-                                    double chance = calculateRenderChance(relativeDistance, fadeDistance);
-                                    
-                                    // 提高視線焦點區域的渲染機率
-                                    if (isInFocusArea(player, loc, playerDirection)) {
-                                        chance *= focusFactor;
-                                    }
-                                    
-                                    // 強化邊緣
-                                    if (point.isCorner() || point.isVertical()) {
-                                        chance *= edgeEmphasis;
-                                    }
-                                    
-                                    // 根據機率決定是否渲染
-                                    if (Math.random() > chance) {
-                                        continue;
-                                    }
-                                }
-                                
-                                // 波浪效果：根據時間和位置調整顏色亮度
-                                double brightnessFactor = 1.0;
-                                if (waveEffect) {
-                                    // 計算基於時間和位置的波浪效果
-                                    double waveOffset = (currentTimeMillis / 1000.0) * waveSpeed;
-                                    double locationFactor = (loc.getBlockX() + loc.getBlockY() + loc.getBlockZ()) * 0.1;
-                                    double waveFactor = Math.sin(waveOffset + locationFactor) * waveIntensity + 1.0;
-                                    brightnessFactor *= waveFactor;
-                                }
-                                
-                                // 根據點的屬性選擇適當的顏色
-                                if (point.isCorner()) {
-                                    // 角落點使用頂部框架的顏色，並增強亮度
-                                    Color adjustedColor = adjustColorBrightness(cornerSettings.getColor(), brightnessFactor * 1.5);
-                                    allParticles.add(new ParticleData(cornerSettings.getParticle(), loc, adjustedColor));
-                                } else if (point.isVertical()) {
-                                    // 垂直點使用垂直線的顏色，並適當增強
-                                    Color adjustedColor = adjustColorBrightness(verticalSettings.getColor(), brightnessFactor * 1.2);
-                                    allParticles.add(new ParticleData(verticalSettings.getParticle(), loc, adjustedColor));
-                                } else {
-                                    // 其他點使用水平線的顏色，正常亮度
-                                    Color adjustedColor = adjustColorBrightness(horizontalSettings.getColor(), brightnessFactor);
-                                    allParticles.add(new ParticleData(horizontalSettings.getParticle(), loc, adjustedColor));
-                                }
-                            }
-                        }
-                    } else {
-                        // 處理 FULL 模式
-                        int verticalRange = configManager.getVerticalRenderRange(mode);
-                        boolean adaptiveDensity = configManager.isAdaptiveDensity();
-                        double focusFactor = configManager.getFocusFactor();
-                        double fadeDistance = configManager.getFadeDistance();
-                        
-                        // 玩家視線方向向量
-                        Vector playerDirection = player.getLocation().getDirection();
-                        
-                        for (ConfigManager.ClaimPart part : ConfigManager.ClaimPart.values()) {
-                            ConfigManager.ParticleSettings particleSettings = 
-                                    configManager.getParticleSettings(claim.getType(), part);
-                            
-                            // 根據部位調整粒子顏色亮度
-                            Color adjustedColor = adjustColorBrightness(
-                                    particleSettings.getColor(), 
-                                    configManager.getPartBrightness(part));
-                            
-                            List<Location> points;
-                            if (part == ConfigManager.ClaimPart.TOP || part == ConfigManager.ClaimPart.VERTICAL) {
-                                points = claim.getPointsInVerticalRange(part, spacing, playerY, verticalRange);
-                            } else {
-                                // 對於水平線和底部，使用原始方法
-                                points = claim.getPointsForPart(part, spacing, playerY);
-                            }
-                            
-                            for (Location loc : points) {
-                                if (isInPlayerViewDirection(player, loc)) {
-                                    // 自適應密度：根據距離決定是否渲染
-                                    if (adaptiveDensity) {
-                                        double distance = player.getLocation().distance(loc);
-                                        double maxDistance = configManager.getRenderDistance(mode);
-                                        double relativeDistance = distance / maxDistance;
-                                        
-                                        // 根據距離計算渲染機率
-                                        double chance = calculateRenderChance(relativeDistance, fadeDistance);
-                                        
-                                        // 提高視線焦點區域的渲染機率
-                                        if (isInFocusArea(player, loc, playerDirection)) {
-                                            chance *= focusFactor;
-                                        }
-                                        
-                                        // 根據機率決定是否渲染
-                                        if (Math.random() > chance) {
-                                            continue;
-                                        }
-                                    }
-                                    
-                                    allParticles.add(new ParticleData(
-                                            particleSettings.getParticle(), 
-                                            loc, 
-                                            adjustedColor));
-                                }
-                            }
-                        }
-                    }
-                }
-                
-                // 切換回主執行緒，將粒子資料加入佇列
-                new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        queueManager.queueParticlesForPlayer(player.getUniqueId(), allParticles, mode);
-                    }
-                }.runTask(plugin);
-            }
-        }.runTaskAsynchronously(plugin);
+    public void start() {
+        shutdown();
+        
+        parallelism = configManager.getRenderThreads();
+        AtomicInteger threadCount = new AtomicInteger();
+        renderExecutor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_JOBS), runnable -> {
+                    Thread thread = new Thread(runnable, "ClaimVisualizer-Render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
     
     /**
-     * 合併並移除重複的牆面點
-     * @param list1 第一個點列表
-     * @param list2 第二個點列表
-     * @return 合併後不含重複的點列表
+     * 關閉渲染執行緒池並捨棄所有尚未完成的請求
      */
-    private List<ClaimBoundary.WallPoint> removeDuplicateWallPoints(List<ClaimBoundary.WallPoint> list1, List<ClaimBoundary.WallPoint> list2) {
-        // 使用空間網格法來快速判斷鄰近點
-        // 網格大小設為粒子間距的一半，確保可以捕捉到重複點
-        double gridSize = 0.25;
-        Map<GridKey, ClaimBoundary.WallPoint> pointGrid = new HashMap<>();
-        List<ClaimBoundary.WallPoint> result = new ArrayList<>();
-        
-        // 處理第一個列表的點
-        for (ClaimBoundary.WallPoint point : list1) {
-            Location loc = point.getLocation();
-            GridKey key = new GridKey(
-                    Math.floor(loc.getX() / gridSize),
-                    Math.floor(loc.getY() / gridSize),
-                    Math.floor(loc.getZ() / gridSize)
-            );
-            
-            // 如果該網格尚未有點，則添加
-            if (!pointGrid.containsKey(key)) {
-                pointGrid.put(key, point);
-                result.add(point);
-            }
+    public void shutdown() {
+        if (renderExecutor != null) {
+            renderExecutor.shutdownNow();
+            renderExecutor = null;
         }
-        
-        // 處理第二個列表的點
-        for (ClaimBoundary.WallPoint point : list2) {
-            Location loc = point.getLocation();
-            GridKey key = new GridKey(
-                    Math.floor(loc.getX() / gridSize),
-                    Math.floor(loc.getY() / gridSize),
-                    Math.floor(loc.getZ() / gridSize)
-            );
-            
-            // 如果該網格尚未有點，則添加
-            if (!pointGrid.containsKey(key)) {
-                pointGrid.put(key, point);
-                result.add(point);
-            }
+        for (PlayerSession session : sessionManager.getSessions()) {
+            session.cancelPendingView();
         }
-        
-        return result;
     }
     
     /**
-     * 空間網格索引鍵，用於快速判斷點是否在同一網格
+     * 以一個批次非同步渲染多位玩家，必須在主執行緒呼叫
+     * 玩家已有尚未開始的請求時只更新其快照；上一個畫面仍在計算時捨棄這次請求
+     * @param views 在主執行緒擷取的玩家渲染快照
      */
-    private static class GridKey {
-        private final double x, y, z;
+    public void renderBatch(List<PlayerRenderSnapshot> views) {
+        ExecutorService executor = renderExecutor;
+        if (executor == null) return;
         
-        public GridKey(double x, double y, double z) {
-            this.x = x;
-            this.y = y;
-            this.z = z;
+        List<PlayerSession> batch = new ArrayList<>(views.size());
+        for (PlayerRenderSnapshot view : views) {
+            PlayerSession session = view.getSession();
+            
+            // 上一個畫面尚未完成，這次的請求已經過時
+            if (session.isRenderJobInFlight()) continue;
+            
+            // 已在佇列中的請求改用最新快照，不重複排入
+            if (session.offerPendingView(view) == null) {
+                batch.add(session);
+            }
         }
         
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            GridKey gridKey = (GridKey) o;
-            return Double.compare(gridKey.x, x) == 0 &&
-                    Double.compare(gridKey.y, y) == 0 &&
-                    Double.compare(gridKey.z, z) == 0;
-        }
+        if (batch.isEmpty()) return;
         
-        @Override
-        public int hashCode() {
-            return Objects.hash(x, y, z);
+        // 依執行緒數量切分批次
+        int sliceCount = Math.min(parallelism, batch.size());
+        int sliceSize = (batch.size() + sliceCount - 1) / sliceCount;
+        for (int from = 0; from < batch.size(); from += sliceSize) {
+            List<PlayerSession> slice = new ArrayList<>(batch.subList(from, Math.min(batch.size(), from + sliceSize)));
+            try {
+                executor.execute(() -> renderSlice(slice));
+            } catch (RejectedExecutionException e) {
+                // 執行緒池已滿或已關閉，放棄這部分的請求
+                for (PlayerSession session : slice) {
+                    session.cancelPendingView();
+                }
+            }
         }
     }
     
     /**
-     * 根據相對距離計算渲染機率
-     * @param relativeDistance 相對距離(0-1)
-     * @param fadeFactor 淡出因子
-     * @return 渲染機率(0-1)
+     * 在渲染執行緒計算一組玩家的畫面，完成後一次切換回主執行緒加入佇列
      */
-    private double calculateRenderChance(double relativeDistance, double fadeFactor) {
-        // 越近的點渲染機率越高
-        return Math.max(0, 1 - Math.pow(relativeDistance / fadeFactor, 2));
-    }
-    
-    /**
-     * 檢查位置是否在玩家視線焦點區域
-     */
-    private boolean isInFocusArea(Player player, Location location, Vector playerDirection) {
-        if (location.getWorld() != player.getWorld()) return false;
-        
-        Vector playerToLocation = location.clone().subtract(player.getEyeLocation()).toVector();
-        
-        // 規一化向量
-        playerDirection.normalize();
-        playerToLocation.normalize();
-        
-        // 計算兩個向量之間的角度（弧度）
-        double angle = Math.acos(playerDirection.dot(playerToLocation));
-        
-        // 轉換為度數並檢查是否在焦點範圍內(15度)
-        return Math.toDegrees(angle) <= 15;
-    }
-    
-    /**
-     * 調整顏色亮度
-     * @param original 原始顏色
-     * @param factor 亮度因子(>1增亮, <1減暗)
-     * @return 調整後的顏色
-     */
-    private Color adjustColorBrightness(Color original, double factor) {
-        int r = Math.min(255, Math.max(0, (int)(original.getRed() * factor)));
-        int g = Math.min(255, Math.max(0, (int)(original.getGreen() * factor)));
-        int b = Math.min(255, Math.max(0, (int)(original.getBlue() * factor)));
-        return Color.fromRGB(r, g, b);
-    }
-    
-    /**
-     * 檢查位置是否在玩家視野範圍內
-     */
-    private boolean isInPlayerViewDirection(Player player, Location location) {
-        // 從玩家到目標位置的向量
-        Location playerLoc = player.getEyeLocation();
+    private void renderSlice(List<PlayerSession> sessions) {
+        List<PlayerRenderSnapshot> views = new ArrayList<>(sessions.size());
+        List<ParticleBuffer> buffers = new ArrayList<>(sessions.size());
         
-        if (location.getWorld() != playerLoc.getWorld()) return false;
-        
-        double distance = playerLoc.distance(location);
-        if (distance > configManager.getRenderDistance()) return false;
-        
-        // 只檢查前方視野範圍內的粒子
-        if (configManager.getViewAngleRange() < 360) {
-            // 計算玩家視線方向與目標位置的夾角
-            double angle = Math.abs(playerLoc.getDirection().angle(
-                location.toVector().subtract(playerLoc.toVector())));
-            
-            // 轉換為度數
-            double degrees = Math.toDegrees(angle);
-            
-            // 檢查是否在視野範圍內
-            return degrees <= configManager.getViewAngleRange() / 2;
+        for (PlayerSession session : sessions) {
+            try {
+                PlayerRenderSnapshot view = session.beginRenderJob();
+                if (view == null) continue;
+                
+                ParticleBuffer buffer = queueManager.acquireBuffer(session);
+                renderEngine.renderFrame(view, buffer);
+                views.add(view);
+                buffers.add(buffer);
+            } catch (Exception e) {
+                plugin.getLogger().warning("非同步渲染領地粒子時發生錯誤: " + e.getMessage());
+            } finally {
+                session.endRenderJob();
+            }
         }
         
-        return true;
+        if (views.isEmpty() || !plugin.isEnabled()) return;
+        
+        // 切換回主執行緒，將整批粒子緩衝區加入佇列
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            for (int i = 0; i < views.size(); i++) {
+                PlayerRenderSnapshot view = views.get(i);
+                queueManager.queueParticlesForPlayer(view.getSession(), buffers.get(i), view.getMode());
+            }
+        });
     }
 }
@@ -0,0 +1,44 @@
+package dev.twme.claimVisualizer.render;
+
+import org.bukkit.Particle;
+import org.bukkit.entity.Player;
+
+/**
+ * 預設粒子輸出端 - 每個粒子呼叫一次 Player#spawnParticle
+ */
+public class BukkitParticleSink implements ParticleSink {
+    
+    // 依顏色重複使用的 DustOptions
+    private final DustOptionsCache dustOptionsCache = new DustOptionsCache();
+    
+    private Player player;
+    private int emitted;
+    
+    @Override
+    public void begin(Player player) {
+        this.player = player;
+        this.emitted = 0;
+    }
+    
+    @Override
+    public void emit(ParticleBuffer buffer, int index) {
+        Particle particle = buffer.getParticle(index);
+        double x = buffer.getX(index);
+        double y = buffer.getY(index);
+        double z = buffer.getZ(index);
+        
+        if (particle == Particle.DUST) {
+            Particle.DustOptions dustOptions = dustOptionsCache.get(buffer.getColor(index), 1.0f);
+            player.spawnParticle(particle, x, y, z, 1, 0, 0, 0, 0, dustOptions);
+        } else {
+            player.spawnParticle(particle, x, y, z, 1, 0, 0, 0, 0);
+        }
+        emitted++;
+    }
+    
+    @Override
+    public int end() {
+        player = null;
+        return emitted;
+    }
+}
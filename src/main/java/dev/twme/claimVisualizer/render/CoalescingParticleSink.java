@@ -0,0 +1,74 @@
+package dev.twme.claimVisualizer.render;
+
+import org.bukkit.entity.Player;
+
+/**
+ * 合併粒子輸出端 - 同一批中落在同一個 1/8 格內、粒子類型與顏色都相同的粒子只送出一次
+ * 相鄰領地與子領地共用的邊線、各部位交會的角落會產生重疊的粒子，
+ * 重疊的粒子在畫面上無法分辨，合併後可省下對應的封包；不同類型或顏色的粒子 (例如兩種領地類型的邊線) 都會保留
+ */
+public class CoalescingParticleSink implements ParticleSink {
+    
+    private final ParticleSink delegate;
+    
+    // 網格鍵中樣式編號的位元數，一批中超過此數量的樣式不做合併
+    private static final int STYLE_BITS = 8;
+    private static final int MAX_STYLES = 1 << STYLE_BITS;
+    
+    // 本批已送出的網格位置與樣式
+    private final LongHashSet sentCells = new LongHashSet(256);
+    
+    // 本批出現過的樣式 (粒子類型與顏色)，索引即為樣式編號；一批中通常只有少數幾種
+    private final long[] styles = new long[MAX_STYLES];
+    private int styleCount;
+    
+    public CoalescingParticleSink(ParticleSink delegate) {
+        this.delegate = delegate;
+    }
+    
+    @Override
+    public void begin(Player player) {
+        sentCells.clear();
+        styleCount = 0;
+        delegate.begin(player);
+    }
+    
+    @Override
+    public void emit(ParticleBuffer buffer, int index) {
+        int style = styleIndex(buffer.getParticle(index).ordinal(), buffer.getColor(index));
+        if (style < 0 || sentCells.add(cellKey(buffer.getX(index), buffer.getY(index), buffer.getZ(index), style))) {
+            delegate.emit(buffer, index);
+        }
+    }
+    
+    @Override
+    public int end() {
+        return delegate.end();
+    }
+    
+    /**
+     * 取得粒子類型與顏色在本批中的樣式編號，第一次出現時指派
+     * @return 樣式編號，本批樣式已超過上限時回傳 -1
+     */
+    private int styleIndex(int particleOrdinal, int rgb) {
+        long style = ((long) particleOrdinal << 32) | (rgb & 0xFFFFFFFFL);
+        for (int i = 0; i < styleCount; i++) {
+            if (styles[i] == style) return i;
+        }
+        if (styleCount == MAX_STYLES) return -1;
+        
+        styles[styleCount] = style;
+        return styleCount++;
+    }
+    
+    /**
+     * 將座標與樣式編號轉換為 1/8 格網格鍵，X、Z 各取 22 位元、Y 取 12 位元、樣式取 8 位元
+     * 同一批粒子都在玩家附近，不會發生環繞碰撞
+     */
+    private static long cellKey(double x, double y, double z, int style) {
+        long gx = (long) Math.floor(x * 8.0) & 0x3FFFFFL;
+        long gy = (long) Math.floor(y * 8.0) & 0xFFFL;
+        long gz = (long) Math.floor(z * 8.0) & 0x3FFFFFL;
+        return (gx << 42) | (gy << 30) | (gz << STYLE_BITS) | style;
+    }
+}
@@ -0,0 +1,54 @@
+package dev.twme.claimVisualizer.render;
+
+import org.bukkit.Color;
+import org.bukkit.Particle;
+
+import java.util.Arrays;
+
+/**
+ * DustOptions 快取 - 以 RGB 與大小重複使用同一個 DustOptions 實例
+ * 採用固定大小的直接映射表，碰撞時直接取代舊項目，命中時不建立任何物件
+ * DustOptions 不可變，可安全地在多次顯示間共用；只在主執行緒使用
+ */
+public class DustOptionsCache {
+    
+    // 快取項目數量，必須是 2 的次方
+    private static final int CAPACITY = 1024;
+    private static final int MASK = CAPACITY - 1;
+    
+    private final long[] keys = new long[CAPACITY];
+    private final Particle.DustOptions[] values = new Particle.DustOptions[CAPACITY];
+    
+    /**
+     * 取得指定顏色與大小的 DustOptions
+     * @param rgb 打包的 RGB 顏色 (0xRRGGBB)
+     * @param size 粒子大小
+     */
+    public Particle.DustOptions get(int rgb, float size) {
+        long key = ((long) Float.floatToIntBits(size) << 32) | (rgb & 0xFFFFFFL);
+        int slot = slot(key);
+        
+        Particle.DustOptions options = values[slot];
+        if (options != null && keys[slot] == key) {
+            return options;
+        }
+        
+        options = new Particle.DustOptions(Color.fromRGB(rgb & 0xFFFFFF), size);
+        keys[slot] = key;
+        values[slot] = options;
+        return options;
+    }
+    
+    /**
+     * 清空所有快取項目
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+    }
+    
+    private static int slot(long key) {
+        // 混合高低位元，避免相近顏色集中在少數位置
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 54) & MASK;
+    }
+}
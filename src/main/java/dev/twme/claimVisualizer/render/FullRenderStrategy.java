@@ -0,0 +1,71 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.claim.ClaimBoundary;
+import dev.twme.claimVisualizer.claim.PointConsumer;
+import dev.twme.claimVisualizer.claim.SpacingLod;
+import dev.twme.claimVisualizer.config.ConfigManager;
+import org.bukkit.Particle;
+
+/**
+ * FULL 模式 - 顯示完整邊框，應用垂直渲染範圍限制和自適應密度
+ */
+public class FullRenderStrategy implements RenderStrategy {
+    
+    private final ConfigManager configManager;
+    
+    public FullRenderStrategy(ConfigManager configManager) {
+        this.configManager = configManager;
+    }
+    
+    @Override
+    public void render(ClaimBoundary claim, RenderContext context, ParticleBuffer buffer) {
+        int verticalRange = configManager.getVerticalRenderRange(context.getMode());
+        boolean adaptiveDensity = configManager.isAdaptiveDensity();
+        double focusFactor = configManager.getFocusFactor();
+        double fadeDistance = configManager.getFadeDistance();
+        double spacing = context.getSpacing();
+        int playerY = context.getPlayerBlockY();
+        ViewCone viewCone = context.getViewCone();
+        SpacingLod spacingLod = context.getSpacingLod();
+        
+        for (ConfigManager.ClaimPart part : ConfigManager.ClaimPart.values()) {
+            ConfigManager.ParticleSettings particleSettings =
+                    configManager.getParticleSettings(claim.getType(), part);
+            Particle particle = particleSettings.getParticle();
+            
+            // 根據部位調整粒子顏色亮度
+            int adjustedRgb = RenderContext.adjustColorBrightness(
+                    particleSettings.getColor().asRGB(),
+                    configManager.getPartBrightness(part));
+            
+            PointConsumer partConsumer = (x, y, z, flags) -> {
+                if (!context.isVisible(x, y, z)) return;
+                
+                // 自適應密度：根據距離決定是否渲染
+                if (adaptiveDensity) {
+                    // 根據距離計算渲染機率
+                    double chance = context.calculateRenderChance(x, y, z, fadeDistance);
+                    
+                    // 提高視線焦點區域的渲染機率
+                    if (context.isInFocus(x, y, z)) {
+                        chance *= focusFactor;
+                    }
+                    
+                    // 根據機率決定是否渲染
+                    if (!RenderContext.shouldRender(x, y, z, chance)) {
+                        return;
+                    }
+                }
+                
+                buffer.add(x, y, z, adjustedRgb, particle, flags);
+            };
+            
+            if (part == ConfigManager.ClaimPart.TOP || part == ConfigManager.ClaimPart.VERTICAL) {
+                claim.forEachPointInVerticalRange(part, spacing, playerY, verticalRange, viewCone, spacingLod, partConsumer);
+            } else {
+                // 對於水平線和底部，使用原始方法
+                claim.forEachPointForPart(part, spacing, playerY, viewCone, spacingLod, partConsumer);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package dev.twme.claimVisualizer.render;
+
+import java.util.Arrays;
+
+/**
+ * 原始 long 開放定址雜湊集合 - 用於去除重複點，不會為每個元素建立物件
+ * 非執行緒安全，清空時保留已配置的容量以便重複使用
+ */
+final class LongHashSet {
+    
+    private static final long EMPTY = Long.MIN_VALUE;
+    
+    private long[] table;
+    private int size;
+    private boolean containsEmptyKey;
+    
+    LongHashSet() {
+        this(64);
+    }
+    
+    LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+    }
+    
+    /**
+     * 加入一個值
+     * @return 值原本不存在時回傳 true
+     */
+    boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmptyKey) return false;
+            containsEmptyKey = true;
+            size++;
+            return true;
+        }
+        
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (true) {
+            long current = table[index];
+            if (current == EMPTY) {
+                table[index] = value;
+                if (++size * 2 > table.length) {
+                    rehash(table.length << 1);
+                }
+                return true;
+            }
+            if (current == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+    
+    void clear() {
+        if (size == 0) return;
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        containsEmptyKey = false;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    private void rehash(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value == EMPTY) continue;
+            int index = mix(value) & mask;
+            while (table[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            table[index] = value;
+        }
+    }
+    
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
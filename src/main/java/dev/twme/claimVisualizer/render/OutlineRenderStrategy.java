@@ -0,0 +1,35 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.claim.ClaimBoundary;
+import dev.twme.claimVisualizer.config.ConfigManager;
+import org.bukkit.Particle;
+
+/**
+ * OUTLINE 模式 - 只顯示玩家附近的水平輪廓
+ */
+public class OutlineRenderStrategy implements RenderStrategy {
+    
+    private final ConfigManager configManager;
+    
+    public OutlineRenderStrategy(ConfigManager configManager) {
+        this.configManager = configManager;
+    }
+    
+    @Override
+    public void render(ClaimBoundary claim, RenderContext context, ParticleBuffer buffer) {
+        // 使用模式特定的輪廓半徑
+        double outlineRadius = configManager.getRadius(context.getMode());
+        
+        ConfigManager.ParticleSettings particleSettings =
+                configManager.getParticleSettings(claim.getType(), ConfigManager.ClaimPart.HORIZONTAL);
+        Particle particle = particleSettings.getParticle();
+        int rgb = particleSettings.getColor().asRGB();
+        
+        claim.forEachOutlineNearbyPoint(context.getFeetX(), context.getFeetY(), context.getFeetZ(),
+                context.getRenderDistance(), context.getSpacing(), outlineRadius, context.getViewCone(), context.getSpacingLod(), (x, y, z, flags) -> {
+            if (context.isVisible(x, y, z)) {
+                buffer.add(x, y, z, rgb, particle, flags);
+            }
+        });
+    }
+}
@@ -0,0 +1,187 @@
+package dev.twme.claimVisualizer.render;
+
+/**
+ * 全域粒子預算 - 限制每個 tick 所有玩家合計顯示的粒子數量
+ * 預算以加權公平分配 (max-min fairness) 分給本 tick 需要顯示粒子的玩家，
+ * 需求少於公平份額的玩家全數取得，剩餘額度再依權重分給其他玩家
+ * 只在主執行緒使用
+ */
+public class ParticleBudget {
+    
+    // 統計視窗長度 (tick)
+    private static final int WINDOW_TICKS = 20;
+    
+    // 每 tick 的粒子預算，0 或以下表示不限制
+    private int budgetPerTick;
+    
+    // 分配用的暫存陣列，依需要擴充後重複使用
+    private int[] grants = new int[16];
+    private boolean[] settled = new boolean[16];
+    
+    // 目前統計視窗的累計值
+    private int windowTicks;
+    private long windowSpawned;
+    private long windowDeferred;
+    private long windowDropped;
+    
+    // 上一個完整統計視窗的結果
+    private double lastSpawnedPerTick;
+    private double lastDeferredPerTick;
+    private long lastDroppedPerSecond;
+    private double lastUtilization;
+    
+    public ParticleBudget(int budgetPerTick) {
+        this.budgetPerTick = budgetPerTick;
+    }
+    
+    public void setBudgetPerTick(int budgetPerTick) {
+        this.budgetPerTick = budgetPerTick;
+    }
+    
+    public int getBudgetPerTick() {
+        return budgetPerTick;
+    }
+    
+    public boolean isLimited() {
+        return budgetPerTick > 0;
+    }
+    
+    /**
+     * 依權重分配本 tick 的預算
+     * @param wants 每位玩家本 tick 想顯示的粒子數
+     * @param weights 每位玩家的權重，必須大於 0
+     * @param count 有效項目數量
+     * @return 每位玩家可顯示的粒子數，陣列會在下次呼叫時重複使用
+     */
+    public int[] allocate(int[] wants, double[] weights, int count) {
+        ensureCapacity(count);
+        
+        long totalWant = 0;
+        for (int i = 0; i < count; i++) {
+            totalWant += wants[i];
+        }
+        
+        // 不限制或預算足夠時全數給予
+        if (!isLimited() || totalWant <= budgetPerTick) {
+            System.arraycopy(wants, 0, grants, 0, count);
+            record(totalWant, totalWant);
+            return grants;
+        }
+        
+        int remaining = budgetPerTick;
+        double remainingWeight = 0;
+        for (int i = 0; i < count; i++) {
+            grants[i] = 0;
+            settled[i] = wants[i] <= 0;
+            if (!settled[i]) remainingWeight += weights[i];
+        }
+        
+        // 反覆滿足需求低於公平份額的玩家，直到所有剩餘玩家的需求都超過份額
+        boolean changed = true;
+        while (changed && remainingWeight > 0) {
+            changed = false;
+            double share = remaining / remainingWeight;
+            for (int i = 0; i < count; i++) {
+                if (settled[i] || wants[i] > share * weights[i]) continue;
+                grants[i] = wants[i];
+                remaining -= wants[i];
+                remainingWeight -= weights[i];
+                settled[i] = true;
+                changed = true;
+            }
+        }
+        
+        // 剩餘玩家依權重平分剩下的預算
+        if (remainingWeight > 0) {
+            double share = remaining / remainingWeight;
+            for (int i = 0; i < count; i++) {
+                if (settled[i]) continue;
+                grants[i] = (int) (share * weights[i]);
+                remaining -= grants[i];
+            }
+            
+            // 捨去小數後的零頭依序補給權重最高的未滿足玩家
+            while (remaining > 0) {
+                int best = -1;
+                for (int i = 0; i < count; i++) {
+                    if (settled[i] || grants[i] >= wants[i]) continue;
+                    if (best < 0 || weights[i] > weights[best]) best = i;
+                }
+                if (best < 0) break;
+                grants[best]++;
+                settled[best] = true;
+                remaining--;
+            }
+        }
+        
+        record(totalWant, budgetPerTick - remaining);
+        return grants;
+    }
+    
+    /**
+     * 記錄因新畫面取代而未能顯示、被直接捨棄的粒子
+     */
+    public void recordDropped(int count) {
+        windowDropped += count;
+    }
+    
+    /**
+     * 本 tick 沒有任何玩家需要顯示粒子時，仍需推進統計視窗
+     */
+    public void recordIdleTick() {
+        record(0, 0);
+    }
+    
+    private void record(long requested, long spawned) {
+        windowSpawned += spawned;
+        windowDeferred += requested - spawned;
+        
+        if (++windowTicks >= WINDOW_TICKS) {
+            lastSpawnedPerTick = (double) windowSpawned / windowTicks;
+            lastDeferredPerTick = (double) windowDeferred / windowTicks;
+            lastDroppedPerSecond = windowDropped;
+            lastUtilization = isLimited() ? lastSpawnedPerTick / budgetPerTick : 0.0;
+            
+            windowTicks = 0;
+            windowSpawned = 0;
+            windowDeferred = 0;
+            windowDropped = 0;
+        }
+    }
+    
+    private void ensureCapacity(int count) {
+        if (grants.length < count) {
+            int capacity = Math.max(count, grants.length * 2);
+            grants = new int[capacity];
+            settled = new boolean[capacity];
+        }
+    }
+    
+    /**
+     * 最近一秒內平均每 tick 顯示的粒子數
+     */
+    public double getSpawnedPerTick() {
+        return lastSpawnedPerTick;
+    }
+    
+    /**
+     * 最近一秒內平均每 tick 因預算不足而延後的粒子數
+     */
+    public double getDeferredPerTick() {
+        return lastDeferredPerTick;
+    }
+    
+    /**
+     * 最近一秒內因新畫面取代而捨棄的粒子數
+     */
+    public long getDroppedPerSecond() {
+        return lastDroppedPerSecond;
+    }
+    
+    /**
+     * 最近一秒的預算使用率 (0-1)，不限制時為 0
+     */
+    public double getUtilization() {
+        return lastUtilization;
+    }
+}
@@ -0,0 +1,129 @@
+package dev.twme.claimVisualizer.render;
+
+import org.bukkit.Particle;
+
+import java.util.Arrays;
+
+/**
+ * 粒子緩衝區 - 以欄位分離的原始陣列儲存一個畫面的所有粒子
+ * 緩衝區會在每次更新間重複使用，產生粒子時不需建立任何物件
+ */
+public class ParticleBuffer {
+    
+    private static final int INITIAL_CAPACITY = 256;
+    private static final Particle[] PARTICLES = Particle.values();
+    
+    private double[] xs;
+    private double[] ys;
+    private double[] zs;
+    private int[] colors;
+    private short[] particles;
+    private byte[] flags;
+    private int size;
+    
+    public ParticleBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+    
+    public ParticleBuffer(int capacity) {
+        capacity = Math.max(1, capacity);
+        xs = new double[capacity];
+        ys = new double[capacity];
+        zs = new double[capacity];
+        colors = new int[capacity];
+        particles = new short[capacity];
+        flags = new byte[capacity];
+    }
+    
+    /**
+     * 加入一個粒子
+     * @param x X 座標
+     * @param y Y 座標
+     * @param z Z 座標
+     * @param rgb 打包的 RGB 顏色 (0xRRGGBB)
+     * @param particle 粒子類型
+     * @param pointFlags 點的屬性旗標
+     */
+    public void add(double x, double y, double z, int rgb, Particle particle, int pointFlags) {
+        if (size == xs.length) {
+            grow();
+        }
+        xs[size] = x;
+        ys[size] = y;
+        zs[size] = z;
+        colors[size] = rgb;
+        particles[size] = (short) particle.ordinal();
+        flags[size] = (byte) pointFlags;
+        size++;
+    }
+    
+    /**
+     * 將另一個緩衝區的所有粒子附加到此緩衝區末端
+     */
+    public void addAll(ParticleBuffer other) {
+        int required = size + other.size;
+        if (required > xs.length) {
+            grow(required);
+        }
+        System.arraycopy(other.xs, 0, xs, size, other.size);
+        System.arraycopy(other.ys, 0, ys, size, other.size);
+        System.arraycopy(other.zs, 0, zs, size, other.size);
+        System.arraycopy(other.colors, 0, colors, size, other.size);
+        System.arraycopy(other.particles, 0, particles, size, other.size);
+        System.arraycopy(other.flags, 0, flags, size, other.size);
+        size = required;
+    }
+    
+    private void grow() {
+        grow(xs.length + 1);
+    }
+    
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, xs.length * 2);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        zs = Arrays.copyOf(zs, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        particles = Arrays.copyOf(particles, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+    
+    /**
+     * 清空緩衝區，保留已配置的容量
+     */
+    public void clear() {
+        size = 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public double getX(int index) {
+        return xs[index];
+    }
+    
+    public double getY(int index) {
+        return ys[index];
+    }
+    
+    public double getZ(int index) {
+        return zs[index];
+    }
+    
+    public int getColor(int index) {
+        return colors[index];
+    }
+    
+    public Particle getParticle(int index) {
+        return PARTICLES[particles[index]];
+    }
+    
+    public int getFlags(int index) {
+        return flags[index];
+    }
+}
@@ -2,15 +2,12 @@ package dev.twme.claimVisualizer.render;
 
 import dev.twme.claimVisualizer.ClaimVisualizer;
 import dev.twme.claimVisualizer.config.ConfigManager;
-import org.bukkit.Color;
-import org.bukkit.Location;
-import org.bukkit.Particle;
+import dev.twme.claimVisualizer.player.PlayerSession;
+import dev.twme.claimVisualizer.player.ViewerRegistry;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 粒子佇列管理器 - 負責管理粒子的佇列和定時顯示
@@ -19,14 +16,30 @@ public class ParticleQueueManager {
     private final ClaimVisualizer plugin;
     private final ConfigManager configManager;
     
+    // 觀看者註冊表，已不再觀看的玩家其佇列直接捨棄
+    private final ViewerRegistry viewerRegistry;
+    
     // 按顯示模式分類的玩家粒子佇列映射表
-    private final Map<ConfigManager.DisplayMode, Map<UUID, Queue<List<ParticleData>>>> modePlayerParticleQueues = new HashMap<>();
+    private final Map<ConfigManager.DisplayMode, Map<UUID, PlayerParticleQueue>> modePlayerParticleQueues = new HashMap<>();
     
-    // 模式特定的粒子顯示任務
-    private final Map<ConfigManager.DisplayMode, BukkitTask> modeParticleDisplayTasks = new HashMap<>();
-
-    // 粒子分批大小
-    private static final int PARTICLE_BATCH_SIZE = 20;
+    // 已處理的 tick 數，各模式依自己的顯示間隔處理到期的佇列
+    private long displayTick;
+    
+    // 全域粒子預算
+    private final ParticleBudget budget;
+    
+    // 每 tick 到期佇列的暫存，只在主執行緒使用
+    private final List<Player> duePlayers = new ArrayList<>();
+    private final List<PlayerParticleQueue> dueQueues = new ArrayList<>();
+    private final List<Map<UUID, PlayerParticleQueue>> dueModeQueues = new ArrayList<>();
+    private int[] dueWants = new int[16];
+    private double[] dueWeights = new double[16];
+    
+    // 每位玩家保留的閒置緩衝區上限 (顯示中與建立中各一個，另留一個給其他模式)
+    private static final int MAX_POOLED_BUFFERS = 3;
+    
+    // 實際送出粒子的輸出端，顯示任務啟動時依設定建立
+    private ParticleSink particleSink = new BukkitParticleSink();
     
     // 粒子統計管理器參考
     private final ParticleStatisticsManager statisticsManager;
@@ -36,11 +49,15 @@ public class ParticleQueueManager {
      * @param plugin 插件主類別
      * @param configManager 設定管理器
      * @param statisticsManager 粒子統計管理器
+     * @param viewerRegistry 觀看者註冊表
      */
-    public ParticleQueueManager(ClaimVisualizer plugin, ConfigManager configManager, ParticleStatisticsManager statisticsManager) {
+    public ParticleQueueManager(ClaimVisualizer plugin, ConfigManager configManager, ParticleStatisticsManager statisticsManager,
+                                ViewerRegistry viewerRegistry) {
         this.plugin = plugin;
         this.configManager = configManager;
         this.statisticsManager = statisticsManager;
+        this.viewerRegistry = viewerRegistry;
+        this.budget = new ParticleBudget(configManager.getParticleBudget());
         
         // 初始化每種模式的佇列
         for (ConfigManager.DisplayMode mode : ConfigManager.DisplayMode.values()) {
@@ -49,138 +66,186 @@ public class ParticleQueueManager {
     }
     
     /**
-     * 將粒子資料分批並加入玩家的粒子佇列，依顯示模式分開處理
+     * 從玩家會話的緩衝區池取得可寫入的空白粒子緩衝區，可在任何執行緒呼叫
+     * 緩衝區交給 {@link #queueParticlesForPlayer} 後即由佇列管理器負責回收
      */
-    public void queueParticlesForPlayer(UUID playerId, List<ParticleData> particleData, ConfigManager.DisplayMode mode) {
-        // 打亂粒子順序，使顯示更加自然
-        Collections.shuffle(particleData);
-        
-        // 取得該模式的佇列映射表
-        Map<UUID, Queue<List<ParticleData>>> modeQueues = modePlayerParticleQueues.get(mode);
-        if (modeQueues == null) {
-            modeQueues = new ConcurrentHashMap<>();
-            modePlayerParticleQueues.put(mode, modeQueues);
+    public ParticleBuffer acquireBuffer(PlayerSession session) {
+        ParticleBuffer buffer = session.getBufferPool().poll();
+        return buffer != null ? buffer : new ParticleBuffer();
+    }
+    
+    /**
+     * 將不再使用的粒子緩衝區歸還到玩家會話的緩衝區池
+     */
+    public void releaseBuffer(PlayerSession session, ParticleBuffer buffer) {
+        buffer.clear();
+        Queue<ParticleBuffer> pool = session.getBufferPool();
+        if (pool.size() < MAX_POOLED_BUFFERS) {
+            pool.offer(buffer);
         }
-        
-        // 清除玩家在該模式下的現有佇列
-        modeQueues.remove(playerId);
-        
-        // 建立新佇列
-        Queue<List<ParticleData>> particleQueue = new LinkedList<>();
-        
-        // 將粒子分批
-        int totalParticles = particleData.size();
+    }
+    
+    /**
+     * 將粒子緩衝區分批並設為玩家的粒子佇列，依顯示模式分開處理，必須在主執行緒呼叫
+     * 佇列以固定步長交錯走訪緩衝區，每批粒子都分散在整個畫面上，不需打亂或複製粒子資料
+     */
+    public void queueParticlesForPlayer(PlayerSession session, ParticleBuffer buffer, ConfigManager.DisplayMode mode) {
+        // 取得該模式的佇列映射表
+        Map<UUID, PlayerParticleQueue> modeQueues = modePlayerParticleQueues.computeIfAbsent(mode, m -> new ConcurrentHashMap<>());
         
         // 計算每批次應包含的粒子數量，使用模式特定的更新間隔
         int updateInterval = configManager.getUpdateInterval(mode);
         int displayInterval = configManager.getParticleDisplayInterval(mode);
         int batchCount = Math.max(1, Math.min(updateInterval / displayInterval, 20)); // 最多分20批
-        int particlesPerBatch = Math.max(1, totalParticles / batchCount);
-        
-        // 分批將粒子加入佇列
-        List<ParticleData> batch = new ArrayList<>(particlesPerBatch);
-        for (ParticleData data : particleData) {
-            batch.add(data);
-            
-            if (batch.size() >= particlesPerBatch) {
-                particleQueue.add(new ArrayList<>(batch));
-                batch.clear();
-            }
-        }
+        int particlesPerBatch = Math.max(1, buffer.size() / batchCount);
         
-        // 處理剩餘粒子
-        if (!batch.isEmpty()) {
-            particleQueue.add(batch);
+        // 以新佇列取代玩家在該模式下的現有佇列，並回收舊的緩衝區
+        PlayerParticleQueue previous = modeQueues.put(session.getPlayerId(), new PlayerParticleQueue(session, buffer, particlesPerBatch));
+        if (previous != null) {
+            // 舊畫面因預算延後而尚未顯示的粒子直接捨棄，低權重玩家延後最多、捨棄也最多
+            budget.recordDropped(previous.buffer.size() - previous.cursor);
+            releaseBuffer(previous.session, previous.buffer);
         }
-        
-        // 將佇列加入映射表
-        modeQueues.put(playerId, particleQueue);
     }
     
     /**
-     * 處理特定模式的所有玩家粒子佇列，每次顯示一批粒子
+     * 處理本 tick 到期的所有粒子佇列，每個佇列最多顯示一批粒子
+     * 所有到期佇列合計的粒子數受全域預算限制，依模式權重公平分配，
+     * 分不到預算的粒子留在佇列中延到下一次顯示
+     * 由渲染排程器每 tick 呼叫，所有模式在同一 tick 內統一分配預算
      */
-    public void processParticleQueues(ConfigManager.DisplayMode mode) {
-        // 取得該模式的佇列映射表
-        Map<UUID, Queue<List<ParticleData>>> modeQueues = modePlayerParticleQueues.get(mode);
-        if (modeQueues == null) return;
+    void processParticleQueues() {
+        displayTick++;
         
-        // 為所有在線玩家處理粒子佇列
-        for (Player player : plugin.getServer().getOnlinePlayers()) {
-            UUID playerId = player.getUniqueId();
-            Queue<List<ParticleData>> queue = modeQueues.get(playerId);
+        // 收集各模式本 tick 到期的佇列
+        for (ConfigManager.DisplayMode mode : ConfigManager.DisplayMode.values()) {
+            int displayInterval = Math.max(1, configManager.getParticleDisplayInterval(mode));
+            if (displayTick % displayInterval != 0) continue;
+            
+            Map<UUID, PlayerParticleQueue> modeQueues = modePlayerParticleQueues.get(mode);
+            if (modeQueues == null || modeQueues.isEmpty()) continue;
             
-            if (queue != null && !queue.isEmpty()) {
-                // 從佇列取出一批粒子資料並顯示
-                List<ParticleData> batch = queue.poll();
+            double weight = configManager.getBudgetWeight(mode);
+            Iterator<Map.Entry<UUID, PlayerParticleQueue>> iterator = modeQueues.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<UUID, PlayerParticleQueue> entry = iterator.next();
+                PlayerParticleQueue queue = entry.getValue();
                 
-                if (batch != null) {
-                    for (ParticleData data : batch) {
-                        spawnParticle(player, data.getParticle(), data.getLocation(), data.getColor());
-                    }
+                // 已關閉視覺化、失去權限或離線的玩家不再顯示剩餘的粒子
+                Player player = viewerRegistry.getViewer(entry.getKey());
+                if (player == null) {
+                    iterator.remove();
+                    releaseBuffer(queue.session, queue.buffer);
+                    continue;
                 }
+                
+                int index = dueQueues.size();
+                ensureDueCapacity(index + 1);
+                dueWants[index] = Math.min(queue.batchSize, queue.buffer.size() - queue.cursor);
+                dueWeights[index] = weight;
+                duePlayers.add(player);
+                dueQueues.add(queue);
+                dueModeQueues.add(modeQueues);
+            }
+        }
+        
+        int count = dueQueues.size();
+        if (count == 0) {
+            budget.recordIdleTick();
+            return;
+        }
+        
+        int[] grants = budget.allocate(dueWants, dueWeights, count);
+        
+        for (int i = 0; i < count; i++) {
+            Player player = duePlayers.get(i);
+            PlayerParticleQueue queue = dueQueues.get(i);
+            
+            // 從佇列取出分配到的粒子數量並顯示
+            ParticleBuffer buffer = queue.buffer;
+            particleSink.begin(player);
+            for (int j = 0; j < grants[i]; j++) {
+                particleSink.emit(buffer, queue.next());
+            }
+            
+            // 更新統計數據
+            int sent = particleSink.end();
+            if (sent > 0) {
+                statisticsManager.addPlayerParticleCount(player.getUniqueId(), sent);
+            }
+            
+            // 全部顯示完畢後回收緩衝區
+            if (queue.cursor >= buffer.size() && dueModeQueues.get(i).remove(player.getUniqueId(), queue)) {
+                releaseBuffer(queue.session, buffer);
             }
         }
+        
+        duePlayers.clear();
+        dueQueues.clear();
+        dueModeQueues.clear();
     }
     
-    /**
-     * 顯示粒子並更新計數
-     */
-    private void spawnParticle(Player player, Particle particle, Location location, Color color) {
-        if (particle == Particle.DUST) {
-            Particle.DustOptions dustOptions = new Particle.DustOptions(
-                    org.bukkit.Color.fromRGB(color.getRed(), color.getGreen(), color.getBlue()), 1.0f);
-            player.spawnParticle(particle, location, 1, 0, 0, 0, 0, dustOptions);
-        } else {
-            player.spawnParticle(particle, location, 1, 0, 0, 0, 0);
+    private void ensureDueCapacity(int count) {
+        if (dueWants.length < count) {
+            int capacity = Math.max(count, dueWants.length * 2);
+            dueWants = Arrays.copyOf(dueWants, capacity);
+            dueWeights = Arrays.copyOf(dueWeights, capacity);
         }
-
-        // 更新統計數據
-        statisticsManager.incrementPlayerParticleCount(player.getUniqueId());
     }
     
     /**
-     * 啟動粒子顯示任務
+     * 依目前設定準備粒子顯示 (預算與輸出端)
      */
-    public void startParticleDisplayTasks() {
-        stopParticleDisplayTasks();
+    public void start() {
+        stop();
         
-        for (ConfigManager.DisplayMode mode : ConfigManager.DisplayMode.values()) {
-            int displayInterval = configManager.getParticleDisplayInterval(mode);
-            
-            // 粒子顯示任務 - 使用模式特定的顯示間隔
-            modeParticleDisplayTasks.put(mode, new org.bukkit.scheduler.BukkitRunnable() {
-                @Override
-                public void run() {
-                    processParticleQueues(mode);
-                }
-            }.runTaskTimer(plugin, displayInterval, displayInterval));
-        }
+        budget.setBudgetPerTick(configManager.getParticleBudget());
+        particleSink = createParticleSink();
+        displayTick = 0;
+    }
+    
+    /**
+     * 停止粒子顯示並清空所有粒子佇列
+     */
+    public void stop() {
+        clearQueues();
     }
     
     /**
-     * 停止粒子顯示任務
+     * 清空所有粒子佇列並回收其緩衝區
      */
-    public void stopParticleDisplayTasks() {
-        for (BukkitTask task : modeParticleDisplayTasks.values()) {
-            if (task != null) {
-                task.cancel();
+    public void clearQueues() {
+        for (Map<UUID, PlayerParticleQueue> queues : modePlayerParticleQueues.values()) {
+            for (PlayerParticleQueue queue : queues.values()) {
+                releaseBuffer(queue.session, queue.buffer);
             }
-        }
-        modeParticleDisplayTasks.clear();
-        
-        // 清空所有粒子佇列
-        for (Map<UUID, Queue<List<ParticleData>>> queues : modePlayerParticleQueues.values()) {
             queues.clear();
         }
     }
     
+    /**
+     * 依設定建立粒子輸出端
+     */
+    private ParticleSink createParticleSink() {
+        return switch (configManager.getParticleSinkType()) {
+            case COALESCING -> new CoalescingParticleSink(new BukkitParticleSink());
+            default -> new BukkitParticleSink();
+        };
+    }
+    
     /**
      * 清除特定玩家的所有粒子佇列
      */
     public void clearPlayerQueues(UUID playerId) {
-        for (Map<UUID, Queue<List<ParticleData>>> modeQueues : modePlayerParticleQueues.values()) {
+        for (Map<UUID, PlayerParticleQueue> modeQueues : modePlayerParticleQueues.values()) {
             modeQueues.remove(playerId);
         }
     }
+    
+    /**
+     * 取得全域粒子預算與使用狀況
+     */
+    public ParticleBudget getBudget() {
+        return budget;
+    }
 }
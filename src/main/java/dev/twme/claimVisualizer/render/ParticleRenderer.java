@@ -1,30 +1,30 @@
 package dev.twme.claimVisualizer.render;
 
 import dev.twme.claimVisualizer.ClaimVisualizer;
-import dev.twme.claimVisualizer.claim.ClaimBoundary;
 import dev.twme.claimVisualizer.claim.ClaimManager;
 import dev.twme.claimVisualizer.config.ConfigManager;
 import dev.twme.claimVisualizer.player.PlayerSession;
-import org.bukkit.Color;
-import org.bukkit.Location;
-import org.bukkit.Particle;
+import dev.twme.claimVisualizer.player.PlayerSessionManager;
+import dev.twme.claimVisualizer.player.ViewerRegistry;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
-import org.bukkit.util.Vector;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class ParticleRenderer {
-
+    
     private final ClaimVisualizer plugin;
     private final ClaimManager claimManager;
     private final ConfigManager configManager;
+    private final PlayerSessionManager sessionManager;
+    
+    // 依顯示模式分類的觀看者，渲染任務只走訪這些玩家
+    private final ViewerRegistry viewerRegistry;
     
-    private BukkitTask renderTask;
-    private final Map<ConfigManager.DisplayMode, BukkitTask> modeRenderTasks = new HashMap<>();
+    // 等待重新渲染的玩家 (移動、傳送、切換世界)，由渲染排程器每 tick 統一處理，只在主執行緒使用
+    private final Map<UUID, DirtyRender> dirtyPlayers = new HashMap<>();
     
     // 粒子佇列管理器
     private final ParticleQueueManager queueManager;
@@ -32,22 +32,40 @@ public class ParticleRenderer {
     // 粒子統計管理器
     private final ParticleStatisticsManager statisticsManager;
     
+    // 同步與非同步共用的渲染引擎
+    private final RenderEngine renderEngine;
+    
     // 非同步渲染管理器
     private final AsyncRenderManager asyncRenderManager;
-
+    
+    // 依伺服器負載調整粒子品質的控制器
+    private final QualityController qualityController;
+    
+    // 統一處理所有模式渲染與粒子顯示的排程器
+    private final RenderScheduler renderScheduler;
+    
     public ParticleRenderer(ClaimVisualizer plugin, ClaimManager claimManager) {
         this.plugin = plugin;
         this.claimManager = claimManager;
         this.configManager = plugin.getConfigManager();
+        this.sessionManager = plugin.getSessionManager();
+        this.viewerRegistry = plugin.getViewerRegistry();
         
         // 初始化統計管理器
         this.statisticsManager = new ParticleStatisticsManager(plugin);
         
         // 初始化粒子佇列管理器 (使用統計管理器的參考)
-        this.queueManager = new ParticleQueueManager(plugin, configManager, statisticsManager);
+        this.queueManager = new ParticleQueueManager(plugin, configManager, statisticsManager, viewerRegistry);
+        
+        // 初始化渲染引擎與非同步渲染管理器
+        this.renderEngine = new RenderEngine(claimManager, configManager, sessionManager);
+        this.asyncRenderManager = new AsyncRenderManager(plugin, renderEngine, queueManager);
+        
+        this.qualityController = new QualityController(plugin, configManager);
         
-        // 初始化非同步渲染管理器
-        this.asyncRenderManager = new AsyncRenderManager(plugin, claimManager, queueManager, statisticsManager);
+        // 沒有觀看者時排程器暫停，第一位玩家開始觀看時恢復
+        this.renderScheduler = new RenderScheduler(plugin, configManager, viewerRegistry, this, queueManager);
+        viewerRegistry.setActivationListener(renderScheduler::resume);
     }
 
     /**
@@ -57,435 +75,176 @@ public class ParticleRenderer {
         // 停止所有現有任務
         stopRenderTask();
         
-        // 為每種顯示模式啟動獨立的渲染任務
-        for (ConfigManager.DisplayMode mode : ConfigManager.DisplayMode.values()) {
-            int updateInterval = configManager.getUpdateInterval(mode);
-            
-            // 渲染任務 - 使用模式特定的更新間隔
-            modeRenderTasks.put(mode, new BukkitRunnable() {
-                @Override
-                public void run() {
-                    renderForAllPlayersWithMode(mode);
-                }
-            }.runTaskTimer(plugin, updateInterval, updateInterval));
-        }
+        // 設定可能已重新載入，捨棄以舊設定計算的畫面
+        renderEngine.clearRenderStates();
+        
+        // 建立非同步渲染執行緒池
+        asyncRenderManager.start();
+        
+        // 準備粒子佇列管理器
+        queueManager.start();
         
-        // 啟動粒子佇列管理器
-        queueManager.startParticleDisplayTasks();
+        // 啟動渲染排程，目前沒有觀看者時等到有玩家開始觀看才執行
+        renderScheduler.start();
         
         // 啟動統計管理器
         statisticsManager.startStatisticsTask();
+        
+        // 啟動自適應品質控制
+        qualityController.start();
     }
-
+    
     /**
      * 停止渲染排程任務
      */
     public void stopRenderTask() {
-        if (renderTask != null) {
-            renderTask.cancel();
-            renderTask = null;
-        }
+        // 停止渲染排程
+        renderScheduler.stop();
         
-        // 停止所有模式特定的渲染任務
-        for (BukkitTask task : modeRenderTasks.values()) {
-            if (task != null) {
-                task.cancel();
-            }
-        }
-        modeRenderTasks.clear();
+        // 停止自適應品質控制
+        qualityController.stop();
+        
+        // 關閉非同步渲染執行緒池
+        asyncRenderManager.shutdown();
         
         // 停止粒子佇列管理器
-        queueManager.stopParticleDisplayTasks();
-
+        queueManager.stop();
+        
         // 停止統計管理器
         statisticsManager.stopStatisticsTask();
     }
 
     /**
-     * 為所有使用特定顯示模式的玩家渲染粒子
+     * 渲染一位觀看者，由渲染排程器在玩家的更新時機或重新渲染請求到期時呼叫
+     * @param asyncViews 非同步渲染的批次，同步渲染時為 null
+     * @return 玩家本 tick 已渲染過時回傳 false
      */
-    private void renderForAllPlayersWithMode(ConfigManager.DisplayMode targetMode) {
-        for (Player player : plugin.getServer().getOnlinePlayers()) {
-            PlayerSession session = PlayerSession.getSession(player);
-            
-            if (session.isVisualizationEnabled() && player.hasPermission("claimvisualizer.use")) {
-                // 取得玩家實際使用的顯示模式
-                ConfigManager.DisplayMode playerMode = session.getDisplayMode() != null ? 
-                                                      session.getDisplayMode() : 
-                                                      configManager.getDisplayMode();
-                
-                // 只處理與目標模式相同的玩家
-                if (playerMode == targetMode) {
-                    if (configManager.isAsyncRendering()) {
-                        renderClaimsAsync(player, playerMode);
-                    } else {
-                        renderClaims(player, playerMode);
-                    }
-                }
-            }
+    boolean renderViewer(Player player, ConfigManager.DisplayMode mode, int currentTick, List<PlayerRenderSnapshot> asyncViews) {
+        PlayerSession session = sessionManager.getSession(player);
+        if (!session.beginRenderTick(currentTick)) return false;
+        
+        // 已到期的重新渲染請求由這次渲染一併滿足
+        DirtyRender dirty = dirtyPlayers.get(player.getUniqueId());
+        if (dirty != null && dirty.dueTick <= currentTick) {
+            dirtyPlayers.remove(player.getUniqueId());
         }
-    }
-
-    /**
-     * 為特定玩家渲染領地粒子
-     */
-    public void renderClaims(Player player) {
-        // 使用玩家自訂模式，如未設定則使用預設設定
-        PlayerSession session = PlayerSession.getSession(player);
-        ConfigManager.DisplayMode mode = (session.getDisplayMode() != null) ? session.getDisplayMode() : configManager.getDisplayMode();
         
-        renderClaims(player, mode);
+        render(player, session, mode, asyncViews);
+        return true;
     }
-
+    
     /**
-     * 為特定玩家渲染領地粒子，使用指定顯示模式
+     * 將本 tick 擷取的快照以一個批次交給渲染執行緒池
      */
-    public void renderClaims(Player player, ConfigManager.DisplayMode mode) {
-        Set<ClaimBoundary> claims = claimManager.getNearbyClaims(player);
-        double spacing = configManager.getParticleSpacing(mode);
-        int renderDistance = configManager.getRenderDistance(mode);
-        int playerY = player.getLocation().getBlockY();
-        
-        // 收集所有粒子資料
-        List<ParticleData> allParticles = new ArrayList<>();
-        
-        for (ClaimBoundary claim : claims) {
-            if (mode == ConfigManager.DisplayMode.WALL) {
-                // 使用模式特定的牆面半徑
-                double wallRadius = configManager.getRadius(mode);
-                
-                // 獲取 WALL 模式的增強設定
-                boolean adaptiveDensity = configManager.isWallAdaptiveDensity();
-                double focusFactor = configManager.getWallFocusFactor();
-                double fadeDistance = configManager.getWallFadeDistance();
-                double edgeEmphasis = configManager.getWallEdgeEmphasis();
-                boolean waveEffect = configManager.isWallWaveEffect();
-                double waveSpeed = configManager.getWallWaveSpeed();
-                double waveIntensity = configManager.getWallWaveIntensity();
-                double viewAngleEffect = configManager.getWallViewAngleEffect();
-                boolean useRaycastMethod = configManager.isWallUseRaycastMethod();
-                boolean useViewAngleMethod = configManager.isWallUseViewAngleMethod();
-                
-                // 玩家視線方向向量
-                Vector playerDirection = player.getLocation().getDirection();
-                
-                // 取得當前時間戳用於波浪效果
-                long currentTimeMillis = System.currentTimeMillis();
-                
-                // 獲取水平和垂直線的粒子設定
-                ConfigManager.ParticleSettings horizontalSettings = 
-                        configManager.getParticleSettings(claim.getType(), ConfigManager.ClaimPart.HORIZONTAL);
-                ConfigManager.ParticleSettings verticalSettings = 
-                        configManager.getParticleSettings(claim.getType(), ConfigManager.ClaimPart.VERTICAL);
-                ConfigManager.ParticleSettings cornerSettings = 
-                        configManager.getParticleSettings(claim.getType(), ConfigManager.ClaimPart.TOP);
-                
-                // 收集兩種方法產生的所有點
-                List<ClaimBoundary.WallPoint> raycastPoints = new ArrayList<>();
-                List<ClaimBoundary.WallPoint> viewAnglePoints = new ArrayList<>();
-                
-                // 使用視線射線檢測方法
-                if (useRaycastMethod) {
-                    raycastPoints.addAll(claim.getWallModePointsWithRaycast(
-                            player.getLocation(), playerDirection, renderDistance, spacing, wallRadius));
-                }
-                
-                // 使用基於視角的方法
-                if (useViewAngleMethod) {
-                    viewAnglePoints.addAll(claim.getWallModePointsWithViewAngle(
-                            player.getLocation(), playerDirection, renderDistance, spacing, wallRadius, viewAngleEffect));
-                }
-                
-                // 合併並去除重複點
-                List<ClaimBoundary.WallPoint> points = removeDuplicateWallPoints(raycastPoints, viewAnglePoints);
-                
-                for (ClaimBoundary.WallPoint point : points) {
-                    Location loc = point.getLocation();
-                    if (isInPlayerViewDirection(player, loc)) {
-                        // 1. 自適應密度：根據距離決定是否渲染
-                        if (adaptiveDensity) {
-                            double distance = player.getLocation().distance(loc);
-                            double maxDistance = configManager.getRenderDistance(mode);
-                            double relativeDistance = distance / maxDistance;
-                            
-                            // 根據距離計算渲染機率
-                            double chance = calculateRenderChance(relativeDistance, fadeDistance);
-                            
-                            // 2. 提高視線焦點區域的渲染機率
-                            if (isInFocusArea(player, loc, playerDirection)) {
-                                chance *= focusFactor;
-                            }
-                            
-                            // 3. 強化邊緣
-                            if (point.isCorner() || point.isVertical()) {
-                                chance *= edgeEmphasis;
-                            }
-                            
-                            // 根據機率決定是否渲染
-                            if (Math.random() > chance) {
-                                continue;
-                            }
-                        }
-                        
-                        // 4. 波浪效果：根據時間和位置調整顏色亮度
-                        double brightnessFactor = 1.0;
-                        if (waveEffect) {
-                            // 計算基於時間和位置的波浪效果
-                            double waveOffset = (currentTimeMillis / 1000.0) * waveSpeed;
-                            double locationFactor = (loc.getBlockX() + loc.getBlockY() + loc.getBlockZ()) * 0.1;
-                            double waveFactor = Math.sin(waveOffset + locationFactor) * waveIntensity + 1.0;
-                            brightnessFactor *= waveFactor;
-                        }
-                        
-                        // 根據點的屬性選擇適當的顏色和亮度
-                        if (point.isCorner()) {
-                            // 角落點使用頂部框架的顏色，並增強亮度
-                            Color adjustedColor = adjustColorBrightness(cornerSettings.getColor(), brightnessFactor * 1.5);
-                            allParticles.add(new ParticleData(cornerSettings.getParticle(), loc, adjustedColor));
-                        } else if (point.isVertical()) {
-                            // 垂直點使用垂直線的顏色，並適當增強
-                            Color adjustedColor = adjustColorBrightness(verticalSettings.getColor(), brightnessFactor * 1.2);
-                            allParticles.add(new ParticleData(verticalSettings.getParticle(), loc, adjustedColor));
-                        } else {
-                            // 其他點使用水平線的顏色，正常亮度
-                            Color adjustedColor = adjustColorBrightness(horizontalSettings.getColor(), brightnessFactor);
-                            allParticles.add(new ParticleData(horizontalSettings.getParticle(), loc, adjustedColor));
-                        }
-                    }
-                }
-            } else if (mode == ConfigManager.DisplayMode.OUTLINE) {
-                // 使用模式特定的輪廓半徑
-                double outlineRadius = configManager.getRadius(mode);
-                List<Location> points = claim.getOutlineNearbyPoints(player.getLocation(), renderDistance, spacing, outlineRadius);
-                
-                ConfigManager.ParticleSettings particleSettings = 
-                        configManager.getParticleSettings(claim.getType(), ConfigManager.ClaimPart.HORIZONTAL);
-                                
-                for (Location loc : points) {
-                    if (isInPlayerViewDirection(player, loc)) {
-                        allParticles.add(new ParticleData(particleSettings.getParticle(), loc, particleSettings.getColor()));
-                    }
-                }
-            } else {
-                // FULL 模式 - 應用垂直渲染範圍限制和增強效果
-                int verticalRange = configManager.getVerticalRenderRange(mode);
-                boolean adaptiveDensity = configManager.isAdaptiveDensity();
-                double focusFactor = configManager.getFocusFactor();
-                double fadeDistance = configManager.getFadeDistance();
-                
-                // 玩家視線方向向量
-                Vector playerDirection = player.getLocation().getDirection();
-                
-                for (ConfigManager.ClaimPart part : ConfigManager.ClaimPart.values()) {
-                    ConfigManager.ParticleSettings particleSettings = 
-                            configManager.getParticleSettings(claim.getType(), part);
-                    
-                    // 根據部位調整粒子顏色亮度
-                    Color adjustedColor = adjustColorBrightness(
-                            particleSettings.getColor(), 
-                            configManager.getPartBrightness(part));
-                    
-                    // 使用新方法獲取垂直範圍內的點
-                    List<Location> points;
-                    if (part == ConfigManager.ClaimPart.TOP || part == ConfigManager.ClaimPart.VERTICAL) {
-                        points = claim.getPointsInVerticalRange(part, spacing, playerY, verticalRange);
-                    } else {
-                        // 對於水平線和底部，使用原始方法
-                        points = claim.getPointsForPart(part, spacing, playerY);
-                    }
-                    
-                    for (Location loc : points) {
-                        if (isInPlayerViewDirection(player, loc)) {
-                            // 自適應密度：根據距離決定是否渲染
-                            if (adaptiveDensity) {
-                                double distance = player.getLocation().distance(loc);
-                                double maxDistance = configManager.getRenderDistance(mode);
-                                double relativeDistance = distance / maxDistance;
-                                
-                                // 根據距離計算渲染機率
-                                double chance = calculateRenderChance(relativeDistance, fadeDistance);
-                                
-                                // 提高視線焦點區域的渲染機率
-                                if (isInFocusArea(player, loc, playerDirection)) {
-                                    chance *= focusFactor;
-                                }
-                                
-                                // 根據機率決定是否渲染
-                                if (Math.random() > chance) {
-                                    continue;
-                                }
-                            }
-                            
-                            allParticles.add(new ParticleData(
-                                    particleSettings.getParticle(), 
-                                    loc, 
-                                    adjustedColor));
-                        }
-                    }
-                }
-            }
+    void submitAsyncViews(List<PlayerRenderSnapshot> asyncViews) {
+        if (!asyncViews.isEmpty()) {
+            asyncRenderManager.renderBatch(asyncViews);
         }
-        
-        // 將收集的粒子資料加入佇列，使用模式特定的佇列
-        queueManager.queueParticlesForPlayer(player.getUniqueId(), allParticles, mode);
     }
     
     /**
-     * 合併並移除重複的牆面點
-     * @param list1 第一個點列表
-     * @param list2 第二個點列表
-     * @return 合併後不含重複的點列表
+     * 標記玩家需要重新渲染，由下一次渲染任務經一般渲染流程 (含非同步渲染) 處理
+     * 處理前重複標記只會渲染一次；已有較晚到期的請求時保留原請求
+     * 位置不連續的原因 (登入、傳送、切換世界) 一律取代原請求，並捨棄上一個畫面使下次渲染完整重新計算
+     * @param reason 重新渲染的原因
+     * @param delayTicks 最早在幾 tick 後渲染
      */
-    private List<ClaimBoundary.WallPoint> removeDuplicateWallPoints(List<ClaimBoundary.WallPoint> list1, List<ClaimBoundary.WallPoint> list2) {
-        // 使用空間網格法來快速判斷鄰近點
-        // 網格大小設為粒子間距的一半，確保可以捕捉到重複點
-        double gridSize = 0.25;
-        Map<GridKey, ClaimBoundary.WallPoint> pointGrid = new HashMap<>();
-        List<ClaimBoundary.WallPoint> result = new ArrayList<>();
-        
-        // 處理第一個列表的點
-        for (ClaimBoundary.WallPoint point : list1) {
-            Location loc = point.getLocation();
-            GridKey key = new GridKey(
-                    Math.floor(loc.getX() / gridSize),
-                    Math.floor(loc.getY() / gridSize),
-                    Math.floor(loc.getZ() / gridSize)
-            );
-            
-            // 如果該網格尚未有點，則添加
-            if (!pointGrid.containsKey(key)) {
-                pointGrid.put(key, point);
-                result.add(point);
-            }
-        }
-        
-        // 處理第二個列表的點
-        for (ClaimBoundary.WallPoint point : list2) {
-            Location loc = point.getLocation();
-            GridKey key = new GridKey(
-                    Math.floor(loc.getX() / gridSize),
-                    Math.floor(loc.getY() / gridSize),
-                    Math.floor(loc.getZ() / gridSize)
-            );
-            
-            // 如果該網格尚未有點，則添加
-            if (!pointGrid.containsKey(key)) {
-                pointGrid.put(key, point);
-                result.add(point);
-            }
+    public void markDirty(Player player, RenderReason reason, int delayTicks) {
+        int dueTick = plugin.getServer().getCurrentTick() + Math.max(0, delayTicks);
+        if (reason.isDiscontinuous()) {
+            sessionManager.getSession(player).getRenderState().reset();
+        } else {
+            DirtyRender existing = dirtyPlayers.get(player.getUniqueId());
+            if (existing != null && (existing.reason.isDiscontinuous() || existing.dueTick >= dueTick)) return;
         }
         
-        return result;
+        dirtyPlayers.put(player.getUniqueId(), new DirtyRender(reason, dueTick));
     }
     
     /**
-     * 空間網格索引鍵，用於快速判斷點是否在同一網格
+     * 取出所有已到期的重新渲染請求，交給渲染排程器排入渲染佇列
      */
-    private static class GridKey {
-        private final double x, y, z;
-        
-        public GridKey(double x, double y, double z) {
-            this.x = x;
-            this.y = y;
-            this.z = z;
-        }
-        
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            GridKey gridKey = (GridKey) o;
-            return Double.compare(gridKey.x, x) == 0 &&
-                    Double.compare(gridKey.y, y) == 0 &&
-                    Double.compare(gridKey.z, z) == 0;
-        }
+    void drainDueDirtyPlayers(int currentTick, Consumer<UUID> consumer) {
+        if (dirtyPlayers.isEmpty()) return;
         
-        @Override
-        public int hashCode() {
-            return Objects.hash(x, y, z);
+        Iterator<Map.Entry<UUID, DirtyRender>> iterator = dirtyPlayers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, DirtyRender> entry = iterator.next();
+            if (entry.getValue().dueTick > currentTick) continue;
+            iterator.remove();
+            consumer.accept(entry.getKey());
         }
     }
-
+    
     /**
-     * 根據相對距離計算渲染機率
-     * @param relativeDistance 相對距離(0-1)
-     * @param fadeFactor 淡出因子
-     * @return 渲染機率(0-1)
+     * 捨棄所有等待中的重新渲染請求與粒子佇列，渲染排程因沒有觀看者而暫停時呼叫
      */
-    private double calculateRenderChance(double relativeDistance, double fadeFactor) {
-        // 越近的點渲染機率越高
-        return Math.max(0, 1 - Math.pow(relativeDistance / fadeFactor, 2));
+    void clearPendingWork() {
+        dirtyPlayers.clear();
+        queueManager.clearQueues();
     }
     
     /**
-     * 檢查位置是否在玩家視線焦點區域
+     * 非同步渲染時加入批次，否則立即在主執行緒渲染
+     * @param asyncViews 非同步渲染的批次，同步渲染時為 null
      */
-    private boolean isInFocusArea(Player player, Location location, Vector playerDirection) {
-        if (location.getWorld() != player.getWorld()) return false;
-        
-        Vector playerToLocation = location.clone().subtract(player.getEyeLocation()).toVector();
-        
-        // 規一化向量
-        playerDirection.normalize();
-        playerToLocation.normalize();
-        
-        // 計算兩個向量之間的角度（弧度）
-        double angle = Math.acos(playerDirection.dot(playerToLocation));
-        
-        // 轉換為度數並檢查是否在焦點範圍內(15度)
-        return Math.toDegrees(angle) <= 15;
+    private void render(Player player, PlayerSession session, ConfigManager.DisplayMode mode, List<PlayerRenderSnapshot> asyncViews) {
+        if (asyncViews != null) {
+            // 在主執行緒擷取玩家狀態，非同步渲染只讀取此快照
+            asyncViews.add(PlayerRenderSnapshot.capture(player, session, mode));
+        } else {
+            renderClaims(player, session, mode);
+        }
     }
-    
+
     /**
-     * 調整顏色亮度
-     * @param original 原始顏色
-     * @param factor 亮度因子(>1增亮, <1減暗)
-     * @return 調整後的顏色
+     * 為特定玩家渲染領地粒子
      */
-    private Color adjustColorBrightness(Color original, double factor) {
-        int r = Math.min(255, Math.max(0, (int)(original.getRed() * factor)));
-        int g = Math.min(255, Math.max(0, (int)(original.getGreen() * factor)));
-        int b = Math.min(255, Math.max(0, (int)(original.getBlue() * factor)));
-        return Color.fromRGB(r, g, b);
+    public void renderClaims(Player player) {
+        // 使用玩家自訂模式，如未設定則使用預設設定
+        PlayerSession session = sessionManager.getSession(player);
+        renderClaims(player, session, session.getDisplayMode(configManager.getDisplayMode()));
     }
 
     /**
-     * 非同步渲染領地粒子
+     * 為特定玩家渲染領地粒子，使用指定顯示模式
      */
-    private void renderClaimsAsync(Player player) {
-        PlayerSession session = PlayerSession.getSession(player);
-        ConfigManager.DisplayMode mode = (session.getDisplayMode() != null) ? session.getDisplayMode() : configManager.getDisplayMode();
-        renderClaimsAsync(player, mode);
+    public void renderClaims(Player player, ConfigManager.DisplayMode mode) {
+        renderClaims(player, sessionManager.getSession(player), mode);
+    }
+    
+    private void renderClaims(Player player, PlayerSession session, ConfigManager.DisplayMode mode) {
+        // 與非同步渲染使用相同的快照與渲染引擎
+        PlayerRenderSnapshot view = PlayerRenderSnapshot.capture(player, session, mode);
+        ParticleBuffer buffer = queueManager.acquireBuffer(session);
+        renderEngine.renderFrame(view, buffer);
+        
+        // 將緩衝區交給佇列，使用模式特定的佇列
+        queueManager.queueParticlesForPlayer(session, buffer, mode);
     }
 
     /**
-     * 非同步渲染領地粒子，使用指定顯示模式
+     * 清除玩家的粒子佇列與重新渲染請求，緩衝區與渲染狀態隨玩家會話一併移除
      */
-    private void renderClaimsAsync(Player player, ConfigManager.DisplayMode mode) {
-        // 委託給非同步渲染管理器
-        asyncRenderManager.renderClaimsAsync(player, mode);
+    public void clearPlayerData(UUID playerId) {
+        queueManager.clearPlayerQueues(playerId);
+        dirtyPlayers.remove(playerId);
     }
 
     /**
-     * 檢查位置是否在玩家視野方向內
+     * 取得自適應品質控制器
      */
-    private boolean isInPlayerViewDirection(Player player, Location location) {
-        if (location.getWorld() != player.getWorld()) return false;
-        
-        Vector playerDirection = player.getLocation().getDirection();
-        Vector playerToLocation = location.clone().subtract(player.getEyeLocation()).toVector();
-        
-        // 規一化向量
-        playerDirection.normalize();
-        playerToLocation.normalize();
-        
-        // 計算兩個向量之間的角度（弧度）
-        double angle = Math.acos(playerDirection.dot(playerToLocation));
-        
-        // 轉換為度數並檢查是否在視角範圍內
-        return Math.toDegrees(angle) <= configManager.getViewAngleRange() / 2;
+    public QualityController getQualityController() {
+        return qualityController;
     }
-
+    
+    /**
+     * 取得全域粒子預算與使用狀況
+     */
+    public ParticleBudget getParticleBudget() {
+        return queueManager.getBudget();
+    }
+    
     /**
      * 取得玩家每秒粒子數量
      */
@@ -506,4 +265,17 @@ public class ParticleRenderer {
     public boolean isParticleCounterDisplayEnabled(UUID playerId) {
         return statisticsManager.isParticleCounterDisplayEnabled(playerId);
     }
+    
+    /**
+     * 等待處理的重新渲染請求
+     */
+    private static final class DirtyRender {
+        private final RenderReason reason;
+        private final int dueTick;
+        
+        private DirtyRender(RenderReason reason, int dueTick) {
+            this.reason = reason;
+            this.dueTick = dueTick;
+        }
+    }
 }
@@ -0,0 +1,26 @@
+package dev.twme.claimVisualizer.render;
+
+import org.bukkit.entity.Player;
+
+/**
+ * 粒子輸出端 - 將佇列中的粒子實際送給玩家
+ * 每批粒子以 begin、多次 emit、end 的順序呼叫，只在主執行緒使用
+ */
+public interface ParticleSink {
+    
+    /**
+     * 開始為玩家送出一批粒子
+     */
+    void begin(Player player);
+    
+    /**
+     * 送出緩衝區中的一個粒子
+     */
+    void emit(ParticleBuffer buffer, int index);
+    
+    /**
+     * 結束目前這批粒子
+     * @return 本批實際送出的粒子數量
+     */
+    int end();
+}
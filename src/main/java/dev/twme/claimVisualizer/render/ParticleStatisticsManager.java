@@ -70,7 +70,14 @@ public class ParticleStatisticsManager {
      * 增加玩家粒子計數
      */
     public void incrementPlayerParticleCount(UUID playerId) {
-        playerParticleCounter.computeIfAbsent(playerId, k -> new AtomicInteger(0)).incrementAndGet();
+        addPlayerParticleCount(playerId, 1);
+    }
+    
+    /**
+     * 一次增加玩家的多個粒子計數
+     */
+    public void addPlayerParticleCount(UUID playerId, int count) {
+        playerParticleCounter.computeIfAbsent(playerId, k -> new AtomicInteger(0)).addAndGet(count);
     }
     
     /**
@@ -0,0 +1,62 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.player.PlayerSession;
+
+/**
+ * 玩家在單一模式下的粒子佇列 - 以固定步長交錯走訪緩衝區內的粒子
+ * 產生器依邊線順序寫入粒子，步長取最接近 n/φ 且與 n 互質的數，
+ * 走訪 n 步剛好經過每個索引一次，且相鄰輸出的粒子在邊線上彼此遠離 (黃金比例低差異序列)
+ * 只在主執行緒使用
+ */
+final class PlayerParticleQueue {
+    
+    // 黃金比例的倒數
+    private static final double INVERSE_GOLDEN_RATIO = 0.6180339887498949;
+    
+    final PlayerSession session;
+    final ParticleBuffer buffer;
+    final int batchSize;
+    private final int stride;
+    
+    // 已顯示的粒子數量與下一個要顯示的索引
+    int cursor;
+    private int position;
+    
+    PlayerParticleQueue(PlayerSession session, ParticleBuffer buffer, int batchSize) {
+        this.session = session;
+        this.buffer = buffer;
+        this.batchSize = batchSize;
+        this.stride = coprimeStride(buffer.size());
+    }
+    
+    /**
+     * 取得下一個要顯示的粒子索引，呼叫前必須確認 cursor 小於緩衝區大小
+     */
+    int next() {
+        int index = position;
+        position += stride;
+        if (position >= buffer.size()) {
+            position -= buffer.size();
+        }
+        cursor++;
+        return index;
+    }
+    
+    private static int coprimeStride(int size) {
+        if (size <= 2) return 1;
+        int stride = Math.max(1, (int) Math.round(size * INVERSE_GOLDEN_RATIO));
+        while (gcd(stride, size) != 1) {
+            stride++;
+        }
+        return stride;
+    }
+    
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,164 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.config.ConfigManager;
+import dev.twme.claimVisualizer.player.PlayerSession;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+
+import java.util.UUID;
+
+/**
+ * 玩家渲染快照 - 在主執行緒擷取渲染所需的玩家狀態
+ * 建立後不再修改，渲染執行緒只讀取快照，不再呼叫任何 Player 方法
+ */
+public final class PlayerRenderSnapshot {
+    
+    private final UUID playerId;
+    private final PlayerSession session;
+    private final UUID worldId;
+    private final World world;
+    
+    // 玩家腳下位置與視角
+    private final double x;
+    private final double y;
+    private final double z;
+    private final float yaw;
+    private final float pitch;
+    
+    // 眼睛位置
+    private final double eyeX;
+    private final double eyeY;
+    private final double eyeZ;
+    
+    // 已規一化的視線方向
+    private final double dirX;
+    private final double dirY;
+    private final double dirZ;
+    
+    private final ConfigManager.DisplayMode mode;
+    
+    private PlayerRenderSnapshot(Player player, PlayerSession session, Location location, Location eyeLocation,
+                                 ConfigManager.DisplayMode mode) {
+        this.playerId = player.getUniqueId();
+        this.session = session;
+        this.world = location.getWorld();
+        this.worldId = world.getUID();
+        this.x = location.getX();
+        this.y = location.getY();
+        this.z = location.getZ();
+        this.yaw = location.getYaw();
+        this.pitch = location.getPitch();
+        this.eyeX = eyeLocation.getX();
+        this.eyeY = eyeLocation.getY();
+        this.eyeZ = eyeLocation.getZ();
+        
+        Vector direction = location.getDirection().normalize();
+        this.dirX = direction.getX();
+        this.dirY = direction.getY();
+        this.dirZ = direction.getZ();
+        
+        this.mode = mode;
+    }
+    
+    /**
+     * 以指定的模式擷取玩家目前的渲染狀態，必須在主執行緒呼叫
+     * 權限已由觀看者註冊表檢查，只有觀看者會被擷取
+     * @param player 玩家
+     * @param session 玩家的會話
+     * @param mode 顯示模式
+     */
+    public static PlayerRenderSnapshot capture(Player player, PlayerSession session, ConfigManager.DisplayMode mode) {
+        return new PlayerRenderSnapshot(player, session, player.getLocation(), player.getEyeLocation(), mode);
+    }
+    
+    public UUID getPlayerId() {
+        return playerId;
+    }
+    
+    /**
+     * 取得玩家的會話，渲染執行緒經由會話讀寫渲染狀態，不必再查詢會話管理器
+     */
+    public PlayerSession getSession() {
+        return session;
+    }
+    
+    public UUID getWorldId() {
+        return worldId;
+    }
+    
+    /**
+     * 取得玩家位置的新 Location 物件，供需要 Location 的幾何方法使用
+     */
+    public Location getLocation() {
+        return new Location(world, x, y, z, yaw, pitch);
+    }
+    
+    /**
+     * 取得視線方向的新 Vector 物件
+     */
+    public Vector getDirection() {
+        return new Vector(dirX, dirY, dirZ);
+    }
+    
+    public double getX() {
+        return x;
+    }
+    
+    public double getY() {
+        return y;
+    }
+    
+    public double getZ() {
+        return z;
+    }
+    
+    public float getYaw() {
+        return yaw;
+    }
+    
+    public float getPitch() {
+        return pitch;
+    }
+    
+    public int getBlockX() {
+        return (int) Math.floor(x);
+    }
+    
+    public int getBlockY() {
+        return (int) Math.floor(y);
+    }
+    
+    public int getBlockZ() {
+        return (int) Math.floor(z);
+    }
+    
+    public double getEyeX() {
+        return eyeX;
+    }
+    
+    public double getEyeY() {
+        return eyeY;
+    }
+    
+    public double getEyeZ() {
+        return eyeZ;
+    }
+    
+    public double getDirX() {
+        return dirX;
+    }
+    
+    public double getDirY() {
+        return dirY;
+    }
+    
+    public double getDirZ() {
+        return dirZ;
+    }
+    
+    public ConfigManager.DisplayMode getMode() {
+        return mode;
+    }
+}
@@ -0,0 +1,142 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.claim.ClaimBoundary;
+import dev.twme.claimVisualizer.config.ConfigManager;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 玩家渲染狀態 - 保存上一個畫面的指紋與每個領地產生的粒子
+ * 指紋包含方塊位置、視線方向分組、領地快照版本、顯示模式與品質等級，
+ * 條件未改變時可沿用上一次的結果，只重新計算有變化的領地
+ * 由玩家會話持有，同一玩家的畫面計算必須以此物件同步
+ */
+public class PlayerRenderState {
+    
+    // 視線方向的分組角度，轉動小於此角度不會重新計算
+    private static final float LOOK_BUCKET_DEGREES = 5.0f;
+    
+    // 上一個畫面的指紋
+    private boolean hasFrame;
+    private UUID worldId;
+    private int blockX;
+    private int blockY;
+    private int blockZ;
+    private int yawBucket;
+    private int pitchBucket;
+    private ConfigManager.DisplayMode mode;
+    private int qualityLevel;
+    private long claimVersion;
+    
+    // 上一個畫面中每個領地產生的粒子
+    private final Map<UUID, ClaimSegment> segments = new HashMap<>();
+    private long frameNumber;
+    
+    /**
+     * 玩家的視角條件是否與上一個畫面相同 (不含領地快照版本)
+     */
+    public boolean matchesView(PlayerRenderSnapshot view, int qualityLevel) {
+        return hasFrame
+                && view.getWorldId().equals(worldId)
+                && view.getBlockX() == blockX
+                && view.getBlockY() == blockY
+                && view.getBlockZ() == blockZ
+                && bucketYaw(view.getYaw()) == yawBucket
+                && bucketPitch(view.getPitch()) == pitchBucket
+                && view.getMode() == mode
+                && qualityLevel == this.qualityLevel;
+    }
+    
+    public long getClaimVersion() {
+        return claimVersion;
+    }
+    
+    /**
+     * 開始新的畫面並記錄其指紋
+     */
+    public void beginFrame(PlayerRenderSnapshot view, int qualityLevel, long claimVersion) {
+        this.hasFrame = true;
+        this.worldId = view.getWorldId();
+        this.blockX = view.getBlockX();
+        this.blockY = view.getBlockY();
+        this.blockZ = view.getBlockZ();
+        this.yawBucket = bucketYaw(view.getYaw());
+        this.pitchBucket = bucketPitch(view.getPitch());
+        this.mode = view.getMode();
+        this.qualityLevel = qualityLevel;
+        this.claimVersion = claimVersion;
+        frameNumber++;
+    }
+    
+    /**
+     * 取得上一個畫面中同一個領地快照產生的粒子，領地已變更或不存在時回傳 null
+     */
+    public ParticleBuffer reuseSegment(ClaimBoundary claim) {
+        ClaimSegment segment = segments.get(claim.getClaimId());
+        if (segment == null || segment.claim != claim) {
+            return null;
+        }
+        segment.frameNumber = frameNumber;
+        return segment.particles;
+    }
+    
+    /**
+     * 取得領地的空白粒子片段，供本畫面重新計算
+     */
+    public ParticleBuffer newSegment(ClaimBoundary claim) {
+        ClaimSegment segment = segments.computeIfAbsent(claim.getClaimId(), id -> new ClaimSegment());
+        segment.claim = claim;
+        segment.frameNumber = frameNumber;
+        segment.particles.clear();
+        return segment.particles;
+    }
+    
+    /**
+     * 結束畫面，移除本畫面中已不在範圍內的領地片段
+     */
+    public void endFrame() {
+        Iterator<ClaimSegment> iterator = segments.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().frameNumber != frameNumber) {
+                iterator.remove();
+            }
+        }
+    }
+    
+    /**
+     * 捨棄上一個畫面，下一個畫面會完整重新計算
+     */
+    public synchronized void reset() {
+        hasFrame = false;
+        segments.clear();
+    }
+    
+    /**
+     * 將目前所有領地片段的粒子附加到緩衝區
+     */
+    public void appendSegments(ParticleBuffer buffer) {
+        for (ClaimSegment segment : segments.values()) {
+            buffer.addAll(segment.particles);
+        }
+    }
+    
+    private static int bucketYaw(float yaw) {
+        return Math.floorMod((int) Math.floor(yaw / LOOK_BUCKET_DEGREES), (int) (360 / LOOK_BUCKET_DEGREES));
+    }
+    
+    private static int bucketPitch(float pitch) {
+        return (int) Math.floor(pitch / LOOK_BUCKET_DEGREES);
+    }
+    
+    /**
+     * 單一領地在上一個畫面產生的粒子
+     */
+    private static class ClaimSegment {
+        private final ParticleBuffer particles = new ParticleBuffer();
+        private ClaimBoundary claim;
+        private long frameNumber;
+    }
+}
@@ -0,0 +1,85 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.ClaimVisualizer;
+import dev.twme.claimVisualizer.config.ConfigManager;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * 自適應品質控制器 - 依伺服器平均 tick 時間 (MSPT) 調整粒子品質
+ * MSPT 高於降級門檻時降低一級品質 (加大間距、縮短距離與半徑、延長更新間隔)，
+ * 低於恢復門檻時恢復一級，兩個門檻之間維持不變以避免來回震盪
+ * 渲染排程每 tick 讀取目前的更新間隔，品質等級改變後下一個 tick 即生效
+ */
+public class QualityController {
+    
+    private final ClaimVisualizer plugin;
+    private final ConfigManager configManager;
+    
+    private BukkitTask controlTask;
+    
+    // 最近一次讀取的 MSPT
+    private double lastMspt;
+    
+    public QualityController(ClaimVisualizer plugin, ConfigManager configManager) {
+        this.plugin = plugin;
+        this.configManager = configManager;
+    }
+    
+    /**
+     * 啟動品質控制任務，未啟用自適應品質時維持設定值
+     */
+    public void start() {
+        stop();
+        
+        if (!configManager.isAdaptiveQuality()) {
+            return;
+        }
+        
+        int checkInterval = configManager.getQualityCheckInterval();
+        controlTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                update();
+            }
+        }.runTaskTimer(plugin, checkInterval, checkInterval);
+    }
+    
+    /**
+     * 停止品質控制任務
+     */
+    public void stop() {
+        if (controlTask != null) {
+            controlTask.cancel();
+            controlTask = null;
+        }
+    }
+    
+    /**
+     * 讀取目前 MSPT 並調整品質等級
+     */
+    private void update() {
+        lastMspt = plugin.getServer().getAverageTickTime();
+        
+        int level = configManager.getQualityLevel();
+        int target = level;
+        if (lastMspt > configManager.getDegradeMspt()) {
+            target = level - 1;
+        } else if (lastMspt < configManager.getRecoverMspt()) {
+            target = level + 1;
+        }
+        
+        target = Math.max(0, Math.min(configManager.getQualityLevels(), target));
+        if (target == level) return;
+        
+        configManager.setQualityLevel(target);
+    }
+    
+    public double getLastMspt() {
+        return lastMspt;
+    }
+    
+    public boolean isActive() {
+        return controlTask != null;
+    }
+}
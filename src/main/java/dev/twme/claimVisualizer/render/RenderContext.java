@@ -0,0 +1,203 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.claim.SpacingLod;
+import dev.twme.claimVisualizer.config.ConfigManager;
+import org.bukkit.Location;
+import org.bukkit.util.Vector;
+
+/**
+ * 渲染上下文 - 單一玩家單一畫面內所有領地共用的資料
+ * 視線與距離判斷所需的數值在建立時一次算好，判斷時只做原始座標運算
+ */
+public class RenderContext {
+    
+    // 亮度因子的量化級數 (每單位亮度)
+    private static final int BRIGHTNESS_STEPS = 16;
+    
+    // 穩定取捨雜湊的座標量化級數 (每格)，需小於最小粒子間距才能區分相鄰的點
+    private static final double THINNING_GRID = 16.0;
+    
+    private final PlayerRenderSnapshot view;
+    private final ConfigManager.DisplayMode mode;
+    private final double spacing;
+    private final int renderDistance;
+    private final long frameTimeMillis;
+    
+    // 供需要物件的幾何方法使用，整個畫面共用
+    private final Location playerLocation;
+    private final Vector playerDirection;
+    
+    private final double feetX, feetY, feetZ;
+    
+    // 視野範圍：限制在全域渲染距離內，視角小於 360 度時才檢查角度
+    private final ViewCone viewCone;
+    
+    // 依距離分級的取樣間距，未啟用時為 null
+    private final SpacingLod spacingLod;
+    
+    public RenderContext(PlayerRenderSnapshot view, ConfigManager configManager) {
+        this.view = view;
+        this.mode = view.getMode();
+        this.spacing = configManager.getParticleSpacing(mode);
+        this.renderDistance = configManager.getRenderDistance(mode);
+        this.frameTimeMillis = System.currentTimeMillis();
+        
+        this.playerLocation = view.getLocation();
+        this.playerDirection = view.getDirection();
+        
+        this.feetX = view.getX();
+        this.feetY = view.getY();
+        this.feetZ = view.getZ();
+        
+        this.viewCone = new ViewCone(view.getEyeX(), view.getEyeY(), view.getEyeZ(),
+                view.getDirX(), view.getDirY(), view.getDirZ(),
+                configManager.getRenderDistance(), configManager.getViewAngleRange());
+        
+        this.spacingLod = configManager.isLodEnabled()
+                ? new SpacingLod(feetX, feetY, feetZ, configManager.getLodTierDistances())
+                : null;
+    }
+    
+    /**
+     * 檢查點是否在玩家視野範圍內
+     */
+    public boolean isVisible(double x, double y, double z) {
+        return viewCone.contains(x, y, z);
+    }
+    
+    /**
+     * 檢查點是否在玩家視線焦點區域
+     */
+    public boolean isInFocus(double x, double y, double z) {
+        return viewCone.isInFocus(x, y, z);
+    }
+    
+    /**
+     * 根據點到玩家位置的距離計算渲染機率，以距離平方計算不需開根號
+     * @param fadeFactor 淡出因子，渲染機率在渲染距離乘以此值處降為 0
+     * @return 渲染機率(0-1)
+     */
+    public double calculateRenderChance(double x, double y, double z, double fadeFactor) {
+        double dx = x - feetX;
+        double dy = y - feetY;
+        double dz = z - feetZ;
+        double fadeDistance = renderDistance * fadeFactor;
+        
+        // 越近的點渲染機率越高
+        return Math.max(0, 1 - (dx * dx + dy * dy + dz * dz) / (fadeDistance * fadeDistance));
+    }
+    
+    /**
+     * 依渲染機率決定是否保留點
+     * 以點座標的穩定雜湊取代隨機數，同一個點在每個畫面得到相同結果，
+     * 粒子不會因取捨而閃爍，條件未改變的畫面也能直接沿用
+     * @param chance 渲染機率(0-1)
+     */
+    public static boolean shouldRender(double x, double y, double z, double chance) {
+        if (chance >= 1) return true;
+        if (chance <= 0) return false;
+        return thinningHash(x, y, z) < chance;
+    }
+    
+    /**
+     * 將座標量化後混合為 [0, 1) 之間均勻分布的值
+     */
+    private static double thinningHash(double x, double y, double z) {
+        long h = Math.round(x * THINNING_GRID) * 0x9E3779B97F4A7C15L;
+        h ^= Math.round(y * THINNING_GRID) * 0xC2B2AE3D27D4EB4FL;
+        h ^= Math.round(z * THINNING_GRID) * 0x165667B19E3779F9L;
+        
+        // 最終混合，讓相鄰座標的結果互不相關
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (h >>> 11) * 0x1.0p-53;
+    }
+    
+    /**
+     * 調整顏色亮度
+     * @param rgb 原始顏色 (0xRRGGBB)
+     * @param factor 亮度因子(>1增亮, <1減暗)
+     * @return 調整後的顏色 (0xRRGGBB)
+     */
+    public static int adjustColorBrightness(int rgb, double factor) {
+        int r = Math.min(255, Math.max(0, (int)(((rgb >> 16) & 0xFF) * factor)));
+        int g = Math.min(255, Math.max(0, (int)(((rgb >> 8) & 0xFF) * factor)));
+        int b = Math.min(255, Math.max(0, (int)((rgb & 0xFF) * factor)));
+        return (r << 16) | (g << 8) | b;
+    }
+    
+    /**
+     * 將亮度因子量化為 1/16 的倍數，讓波浪效果只產生少量不同顏色，
+     * 顯示時可重複使用快取的 DustOptions
+     */
+    public static double quantizeBrightness(double factor) {
+        return Math.round(factor * BRIGHTNESS_STEPS) / (double) BRIGHTNESS_STEPS;
+    }
+    
+    /**
+     * 取得本畫面的視野圓錐，可用於在產生點之前排除不可見的領地與邊線
+     */
+    public ViewCone getViewCone() {
+        return viewCone;
+    }
+    
+    /**
+     * 取得本畫面依距離分級的取樣間距，未啟用時為 null
+     */
+    public SpacingLod getSpacingLod() {
+        return spacingLod;
+    }
+    
+    public PlayerRenderSnapshot getView() {
+        return view;
+    }
+    
+    public ConfigManager.DisplayMode getMode() {
+        return mode;
+    }
+    
+    public double getSpacing() {
+        return spacing;
+    }
+    
+    public int getRenderDistance() {
+        return renderDistance;
+    }
+    
+    public long getFrameTimeMillis() {
+        return frameTimeMillis;
+    }
+    
+    /**
+     * 取得玩家位置，呼叫者不可修改
+     */
+    public Location getPlayerLocation() {
+        return playerLocation;
+    }
+    
+    /**
+     * 取得已規一化的視線方向，呼叫者不可修改
+     */
+    public Vector getPlayerDirection() {
+        return playerDirection;
+    }
+    
+    public int getPlayerBlockY() {
+        return view.getBlockY();
+    }
+    
+    public double getFeetX() {
+        return feetX;
+    }
+    
+    public double getFeetY() {
+        return feetY;
+    }
+    
+    public double getFeetZ() {
+        return feetZ;
+    }
+}
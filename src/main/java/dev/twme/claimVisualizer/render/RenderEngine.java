@@ -0,0 +1,95 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.claim.ClaimBoundary;
+import dev.twme.claimVisualizer.claim.ClaimManager;
+import dev.twme.claimVisualizer.claim.ClaimSnapshot;
+import dev.twme.claimVisualizer.config.ConfigManager;
+import dev.twme.claimVisualizer.player.PlayerSession;
+import dev.twme.claimVisualizer.player.PlayerSessionManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 渲染引擎 - 同步與非同步渲染共用的畫面計算流程
+ * 依玩家快照找出附近領地，再交給顯示模式對應的渲染策略寫入粒子緩衝區
+ * 只讀取玩家快照與已發布的領地快照，可在任何執行緒呼叫
+ * 每位玩家的會話保留上一個畫面的結果，條件未改變的領地直接沿用，不重新計算
+ */
+public class RenderEngine {
+    
+    private final ClaimManager claimManager;
+    private final ConfigManager configManager;
+    private final PlayerSessionManager sessionManager;
+    
+    // 每種顯示模式的渲染策略
+    private final Map<ConfigManager.DisplayMode, RenderStrategy> strategies = new EnumMap<>(ConfigManager.DisplayMode.class);
+    
+    public RenderEngine(ClaimManager claimManager, ConfigManager configManager, PlayerSessionManager sessionManager) {
+        this.claimManager = claimManager;
+        this.configManager = configManager;
+        this.sessionManager = sessionManager;
+        
+        strategies.put(ConfigManager.DisplayMode.OUTLINE, new OutlineRenderStrategy(configManager));
+        strategies.put(ConfigManager.DisplayMode.FULL, new FullRenderStrategy(configManager));
+        strategies.put(ConfigManager.DisplayMode.WALL, new WallRenderStrategy(configManager));
+    }
+    
+    /**
+     * 計算玩家的一個畫面
+     * @param view 在主執行緒擷取的玩家渲染快照
+     * @param buffer 寫入目標，呼叫前應為空
+     */
+    public void renderFrame(PlayerRenderSnapshot view, ParticleBuffer buffer) {
+        RenderStrategy strategy = strategies.get(view.getMode());
+        if (strategy == null) return;
+        
+        PlayerRenderState state = view.getSession().getRenderState();
+        synchronized (state) {
+            ClaimSnapshot snapshot = claimManager.getSnapshot(view.getWorldId());
+            long claimVersion = snapshot != null ? snapshot.getVersion() : -1L;
+            int qualityLevel = configManager.getQualityLevel();
+            
+            // 輸出隨時間變化的策略每個畫面都必須重新計算
+            boolean sameView = !strategy.isTimeDependent() && state.matchesView(view, qualityLevel);
+            
+            // 視角與領地快照都沒有改變，直接沿用上一個畫面
+            if (sameView && state.getClaimVersion() == claimVersion) {
+                state.appendSegments(buffer);
+                return;
+            }
+            
+            RenderContext context = new RenderContext(view, configManager);
+            Set<ClaimBoundary> claims = claimManager.getNearbyClaims(view.getPlayerId(), context.getPlayerLocation());
+            
+            state.beginFrame(view, qualityLevel, claimVersion);
+            ViewCone viewCone = context.getViewCone();
+            for (ClaimBoundary claim : claims) {
+                // 整個領地都不在視野內時不產生任何點
+                if (!viewCone.intersectsBox(claim.getMinX(), claim.getMinY(), claim.getMinZ(),
+                        claim.getMaxX(), claim.getMaxY(), claim.getMaxZ())) {
+                    continue;
+                }
+                
+                // 視角未改變時，只有快照被替換的領地需要重新計算
+                ParticleBuffer segment = sameView ? state.reuseSegment(claim) : null;
+                if (segment == null) {
+                    segment = state.newSegment(claim);
+                    strategy.render(claim, context, segment);
+                }
+            }
+            state.endFrame();
+            state.appendSegments(buffer);
+        }
+    }
+    
+    /**
+     * 捨棄所有玩家的渲染狀態，設定重新載入後呼叫
+     */
+    public void clearRenderStates() {
+        for (PlayerSession session : sessionManager.getSessions()) {
+            session.getRenderState().reset();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package dev.twme.claimVisualizer.render;
+
+/**
+ * 玩家需要重新渲染的原因
+ */
+public enum RenderReason {
+    // 玩家登入
+    JOIN(true),
+    // 玩家移動到另一個方塊
+    MOVE(false),
+    // 玩家傳送
+    TELEPORT(true),
+    // 玩家切換世界
+    WORLD_CHANGE(true);
+    
+    private final boolean discontinuous;
+    
+    RenderReason(boolean discontinuous) {
+        this.discontinuous = discontinuous;
+    }
+    
+    /**
+     * 玩家位置是否不連續 (登入、傳送、切換世界)，上一個畫面已無法沿用
+     */
+    public boolean isDiscontinuous() {
+        return discontinuous;
+    }
+}
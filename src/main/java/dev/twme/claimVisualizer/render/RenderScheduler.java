@@ -0,0 +1,180 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.ClaimVisualizer;
+import dev.twme.claimVisualizer.config.ConfigManager;
+import dev.twme.claimVisualizer.player.ViewerRegistry;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 渲染排程器 - 以單一每 tick 任務統一處理所有顯示模式的渲染與粒子顯示
+ * 每位觀看者在模式的更新間隔內有自己的相位 (由觀看者註冊表指派)，同一模式的玩家分散在間隔內的不同 tick 渲染
+ * 每 tick 的渲染受時間預算限制，超出預算的玩家保留在渲染佇列中延到下一個 tick，
+ * 等待重新渲染的玩家也排入同一個佇列；粒子佇列在同一 tick 內接著處理
+ * 沒有任何觀看者時任務完全停止，第一位玩家開始觀看時才重新排程
+ * 只在主執行緒使用
+ */
+public class RenderScheduler {
+    
+    private static final ConfigManager.DisplayMode[] MODES = ConfigManager.DisplayMode.values();
+    
+    private final ClaimVisualizer plugin;
+    private final ConfigManager configManager;
+    private final ViewerRegistry viewerRegistry;
+    private final ParticleRenderer renderer;
+    private final ParticleQueueManager queueManager;
+    
+    // 每 tick 執行的排程任務，暫停時為 null
+    private BukkitTask tickTask;
+    
+    // 排程器是否已啟動 (啟動後才會因觀看者出現而恢復)
+    private boolean started;
+    
+    // 等待渲染的玩家，依排入順序處理；未在預算內完成的玩家留到下一個 tick
+    private final ArrayDeque<UUID> renderQueue = new ArrayDeque<>();
+    private final Set<UUID> queuedPlayers = new HashSet<>();
+    
+    public RenderScheduler(ClaimVisualizer plugin, ConfigManager configManager, ViewerRegistry viewerRegistry,
+                           ParticleRenderer renderer, ParticleQueueManager queueManager) {
+        this.plugin = plugin;
+        this.configManager = configManager;
+        this.viewerRegistry = viewerRegistry;
+        this.renderer = renderer;
+        this.queueManager = queueManager;
+    }
+    
+    /**
+     * 啟動排程器，目前有觀看者時立即開始每 tick 任務
+     */
+    public void start() {
+        stop();
+        
+        started = true;
+        if (viewerRegistry.hasViewers()) {
+            resume();
+        }
+    }
+    
+    /**
+     * 停止排程器，之後出現觀看者也不會恢復
+     */
+    public void stop() {
+        started = false;
+        cancelTask();
+        clearRenderQueue();
+    }
+    
+    /**
+     * 恢復每 tick 任務，有玩家開始觀看時呼叫；已在執行或排程器未啟動時不做任何事
+     */
+    public void resume() {
+        if (!started || tickTask != null) return;
+        
+        tickTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }.runTaskTimer(plugin, 1L, 1L);
+    }
+    
+    /**
+     * 每 tick 任務是否正在執行
+     */
+    public boolean isRunning() {
+        return tickTask != null;
+    }
+    
+    /**
+     * 處理一個 tick 的渲染與粒子顯示
+     */
+    private void tick() {
+        // 最後一位觀看者離開後暫停，捨棄剩餘的佇列與重新渲染請求
+        if (!viewerRegistry.hasViewers()) {
+            cancelTask();
+            clearRenderQueue();
+            renderer.clearPendingWork();
+            return;
+        }
+        
+        long startTime = System.nanoTime();
+        int currentTick = plugin.getServer().getCurrentTick();
+        
+        // 以伺服器 tick 與玩家的相位判斷是否到期，暫停期間不影響各玩家的節奏
+        for (ConfigManager.DisplayMode mode : MODES) {
+            int updateInterval = Math.max(1, configManager.getUpdateInterval(mode));
+            for (ViewerRegistry.Viewer viewer : viewerRegistry.getViewers(mode)) {
+                if (Math.floorMod(currentTick + viewer.getPhase(), updateInterval) == 0) {
+                    enqueue(viewer.getPlayer().getUniqueId());
+                }
+            }
+        }
+        
+        renderer.drainDueDirtyPlayers(currentTick, this::enqueue);
+        
+        renderQueued(startTime, currentTick);
+        queueManager.processParticleQueues();
+    }
+    
+    /**
+     * 依排入順序渲染佇列中的玩家，直到佇列清空或超出本 tick 的時間預算
+     * 每 tick 至少渲染一位玩家，確保預算極小時佇列仍會前進
+     */
+    private void renderQueued(long startTime, int currentTick) {
+        if (renderQueue.isEmpty()) return;
+        
+        long budgetNanos = (long) (configManager.getRenderBudgetMs() * 1_000_000L);
+        boolean asyncRendering = configManager.isAsyncRendering();
+        List<PlayerRenderSnapshot> asyncViews = asyncRendering ? new ArrayList<>() : null;
+        
+        int rendered = 0;
+        while (!renderQueue.isEmpty()) {
+            if (budgetNanos > 0 && rendered > 0 && System.nanoTime() - startTime >= budgetNanos) break;
+            
+            UUID playerId = renderQueue.poll();
+            queuedPlayers.remove(playerId);
+            
+            // 排入後已關閉視覺化、失去權限或離線的玩家不再是觀看者
+            Player player = viewerRegistry.getViewer(playerId);
+            if (player == null) continue;
+            
+            if (renderer.renderViewer(player, viewerRegistry.getViewerMode(playerId), currentTick, asyncViews)) {
+                rendered++;
+            }
+        }
+        
+        // 本 tick 擷取的快照以一個批次交給渲染執行緒池
+        if (asyncRendering) {
+            renderer.submitAsyncViews(asyncViews);
+        }
+    }
+    
+    /**
+     * 將玩家排入渲染佇列，已在佇列中的玩家不重複排入
+     */
+    private void enqueue(UUID playerId) {
+        if (queuedPlayers.add(playerId)) {
+            renderQueue.add(playerId);
+        }
+    }
+    
+    private void clearRenderQueue() {
+        renderQueue.clear();
+        queuedPlayers.clear();
+    }
+    
+    private void cancelTask() {
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.claim.ClaimBoundary;
+
+/**
+ * 渲染策略 - 每種顯示模式將單一領地轉換為粒子的方式
+ * 實作必須是無狀態或執行緒安全的，同步與非同步渲染共用同一個實例
+ */
+public interface RenderStrategy {
+    
+    /**
+     * 將領地在此畫面中可見的粒子寫入緩衝區
+     * @param claim 領地
+     * @param context 畫面的渲染上下文
+     * @param buffer 粒子緩衝區
+     */
+    void render(ClaimBoundary claim, RenderContext context, ParticleBuffer buffer);
+    
+    /**
+     * 輸出是否會隨時間改變，會改變時無法沿用上一個畫面的結果
+     */
+    default boolean isTimeDependent() {
+        return false;
+    }
+}
@@ -0,0 +1,220 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.claim.ViewVolume;
+
+import java.util.Arrays;
+
+/**
+ * 視野圓錐 - 以玩家眼睛為頂點、視線為軸、限制在最大距離內的視野範圍
+ * 每個畫面建立一次，餘弦與正弦值預先算好，判斷點時只需一次內積，
+ * 判斷領地盒體時以包圍球與圓錐的相交測試排除，邊線則以解析方式裁切到可見的參數區間
+ * 每個畫面只在一個執行緒中使用
+ */
+public final class ViewCone implements ViewVolume {
+    
+    // 視線焦點區域 (15 度) 的餘弦值
+    private static final double FOCUS_COS = Math.cos(Math.toRadians(15));
+    
+    private final double eyeX, eyeY, eyeZ;
+    private final double dirX, dirY, dirZ;
+    private final double maxDistance;
+    private final double maxDistanceSquared;
+    
+    // 視角小於 360 度時才檢查角度
+    private final boolean limitAngle;
+    private final double cosHalfAngle;
+    private final double sinHalfAngle;
+    
+    // 裁切線段時使用的分段點暫存
+    private final double[] breakpoints = new double[8];
+    
+    /**
+     * @param eyeX 視點 X 座標
+     * @param eyeY 視點 Y 座標
+     * @param eyeZ 視點 Z 座標
+     * @param dirX 已規一化的視線方向 X
+     * @param dirY 已規一化的視線方向 Y
+     * @param dirZ 已規一化的視線方向 Z
+     * @param maxDistance 最大可見距離
+     * @param viewAngleRange 視角範圍 (度)
+     */
+    public ViewCone(double eyeX, double eyeY, double eyeZ, double dirX, double dirY, double dirZ,
+                    double maxDistance, double viewAngleRange) {
+        this.eyeX = eyeX;
+        this.eyeY = eyeY;
+        this.eyeZ = eyeZ;
+        this.dirX = dirX;
+        this.dirY = dirY;
+        this.dirZ = dirZ;
+        this.maxDistance = maxDistance;
+        this.maxDistanceSquared = maxDistance * maxDistance;
+        
+        this.limitAngle = viewAngleRange < 360;
+        double halfAngle = Math.toRadians(Math.min(180.0, viewAngleRange / 2));
+        this.cosHalfAngle = Math.cos(halfAngle);
+        this.sinHalfAngle = Math.sin(halfAngle);
+    }
+    
+    /**
+     * 檢查點是否在視野內
+     */
+    public boolean contains(double x, double y, double z) {
+        double dx = x - eyeX;
+        double dy = y - eyeY;
+        double dz = z - eyeZ;
+        double distanceSquared = dx * dx + dy * dy + dz * dz;
+        if (distanceSquared > maxDistanceSquared) return false;
+        
+        // 只檢查前方視野範圍內的粒子
+        return !limitAngle || isWithinAngle(dx, dy, dz, distanceSquared, cosHalfAngle);
+    }
+    
+    /**
+     * 檢查點是否在視線焦點區域
+     */
+    public boolean isInFocus(double x, double y, double z) {
+        double dx = x - eyeX;
+        double dy = y - eyeY;
+        double dz = z - eyeZ;
+        return isWithinAngle(dx, dy, dz, dx * dx + dy * dy + dz * dz, FOCUS_COS);
+    }
+    
+    /**
+     * 以一次內積與預先算好的餘弦值比較，不需計算反三角函數
+     */
+    private boolean isWithinAngle(double dx, double dy, double dz, double lengthSquared, double cos) {
+        if (lengthSquared == 0) return false;
+        
+        double dot = dx * dirX + dy * dirY + dz * dirZ;
+        return dot >= cos * Math.sqrt(lengthSquared);
+    }
+    
+    /**
+     * 檢查球體是否可能有部分在視野內
+     * 球心與視線夾角不超過半視角加上球體的視半徑 (sin φ = r / d) 時即可能相交，
+     * 展開 cos(θ + φ) 後只需一次內積與一次開根號
+     */
+    public boolean intersectsSphere(double cx, double cy, double cz, double radius) {
+        double dx = cx - eyeX;
+        double dy = cy - eyeY;
+        double dz = cz - eyeZ;
+        double distanceSquared = dx * dx + dy * dy + dz * dz;
+        
+        double reach = maxDistance + radius;
+        if (distanceSquared > reach * reach) return false;
+        
+        // 視點在球內或不限制視角
+        double radiusSquared = radius * radius;
+        if (!limitAngle || distanceSquared <= radiusSquared) return true;
+        
+        // 半視角超過 90 度且球體夠大時，θ + φ 超過 180 度，必定相交
+        if (cosHalfAngle < 0 && radiusSquared >= sinHalfAngle * sinHalfAngle * distanceSquared) return true;
+        
+        double dot = dx * dirX + dy * dirY + dz * dirZ;
+        return dot >= cosHalfAngle * Math.sqrt(distanceSquared - radiusSquared) - sinHalfAngle * radius;
+    }
+    
+    @Override
+    public boolean intersectsBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        // 盒體上離視點最近的點超出最大距離時整個盒體都不可見
+        double nx = Math.max(minX, Math.min(maxX, eyeX)) - eyeX;
+        double ny = Math.max(minY, Math.min(maxY, eyeY)) - eyeY;
+        double nz = Math.max(minZ, Math.min(maxZ, eyeZ)) - eyeZ;
+        if (nx * nx + ny * ny + nz * nz > maxDistanceSquared) return false;
+        
+        double hx = (maxX - minX) * 0.5;
+        double hy = (maxY - minY) * 0.5;
+        double hz = (maxZ - minZ) * 0.5;
+        return intersectsSphere(minX + hx, minY + hy, minZ + hz, Math.sqrt(hx * hx + hy * hy + hz * hz));
+    }
+    
+    /**
+     * 以解析方式將線段裁切到視野內
+     * 線段與渲染球面、視野圓錐面、視點所在平面的交點把 [0, 1] 分成數段，
+     * 每段內可見與否不變，只需檢查各段中點；球體與圓錐 (半視角小於 90 度) 的交集是凸集合，
+     * 可見部分必為單一區間，半視角超過 90 度時取涵蓋所有可見段的最小區間 (保守)
+     */
+    @Override
+    public boolean clipSegment(double x1, double y1, double z1, double x2, double y2, double z2, double[] range) {
+        double ax = x1 - eyeX;
+        double ay = y1 - eyeY;
+        double az = z1 - eyeZ;
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double dz = z2 - z1;
+        
+        double dd = dx * dx + dy * dy + dz * dz;
+        if (dd == 0) {
+            range[0] = 0;
+            range[1] = 1;
+            return contains(x1, y1, z1);
+        }
+        double ad = ax * dx + ay * dy + az * dz;
+        double aa = ax * ax + ay * ay + az * az;
+        
+        int count = 0;
+        breakpoints[count++] = 0;
+        
+        // 渲染球面：|A + tD|² = R²
+        count = addRoots(dd, ad, aa - maxDistanceSquared, count);
+        
+        if (limitAngle) {
+            // 圓錐面：((A + tD)·d)² = cos²θ |A + tD|²
+            double a0 = ax * dirX + ay * dirY + az * dirZ;
+            double a1 = dx * dirX + dy * dirY + dz * dirZ;
+            double cos2 = cosHalfAngle * cosHalfAngle;
+            count = addRoots(a1 * a1 - cos2 * dd, a0 * a1 - cos2 * ad, a0 * a0 - cos2 * aa, count);
+            
+            // 視點所在平面：(A + tD)·d = 0，區分圓錐的前後兩半
+            if (a1 != 0) {
+                count = addBreakpoint(-a0 / a1, count);
+            }
+        }
+        
+        breakpoints[count++] = 1;
+        Arrays.sort(breakpoints, 0, count);
+        
+        boolean found = false;
+        for (int i = 0; i + 1 < count; i++) {
+            double lo = breakpoints[i];
+            double hi = breakpoints[i + 1];
+            if (hi <= lo) continue;
+            
+            double mid = (lo + hi) * 0.5;
+            if (contains(x1 + mid * dx, y1 + mid * dy, z1 + mid * dz)) {
+                if (!found) {
+                    range[0] = lo;
+                    found = true;
+                }
+                range[1] = hi;
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * 加入 a t² + 2 b t + c = 0 落在 (0, 1) 內的根
+     */
+    private int addRoots(double a, double halfB, double c, int count) {
+        if (Math.abs(a) < 1.0E-12) {
+            if (halfB != 0) {
+                count = addBreakpoint(-c / (2 * halfB), count);
+            }
+            return count;
+        }
+        
+        double discriminant = halfB * halfB - a * c;
+        if (discriminant < 0) return count;
+        
+        double root = Math.sqrt(discriminant);
+        count = addBreakpoint((-halfB - root) / a, count);
+        return addBreakpoint((-halfB + root) / a, count);
+    }
+    
+    private int addBreakpoint(double t, int count) {
+        if (t > 0 && t < 1) {
+            breakpoints[count++] = t;
+        }
+        return count;
+    }
+}
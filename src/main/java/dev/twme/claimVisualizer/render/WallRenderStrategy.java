@@ -0,0 +1,117 @@
+package dev.twme.claimVisualizer.render;
+
+import dev.twme.claimVisualizer.claim.ClaimBoundary;
+import dev.twme.claimVisualizer.claim.PointConsumer;
+import dev.twme.claimVisualizer.config.ConfigManager;
+
+/**
+ * WALL 模式 - 以牆面方式顯示玩家視線附近的領地邊界
+ * 合併射線檢測與視角兩種方法產生的點，並套用自適應密度、邊緣強化與波浪效果
+ */
+public class WallRenderStrategy implements RenderStrategy {
+    
+    private final ConfigManager configManager;
+    
+    public WallRenderStrategy(ConfigManager configManager) {
+        this.configManager = configManager;
+    }
+    
+    @Override
+    public void render(ClaimBoundary claim, RenderContext context, ParticleBuffer buffer) {
+        ConfigManager.DisplayMode mode = context.getMode();
+        
+        // 使用模式特定的牆面半徑
+        double wallRadius = configManager.getRadius(mode);
+        
+        // 獲取 WALL 模式的增強設定
+        boolean adaptiveDensity = configManager.isWallAdaptiveDensity();
+        double focusFactor = configManager.getWallFocusFactor();
+        double fadeDistance = configManager.getWallFadeDistance();
+        double edgeEmphasis = configManager.getWallEdgeEmphasis();
+        boolean waveEffect = configManager.isWallWaveEffect();
+        double waveSpeed = configManager.getWallWaveSpeed();
+        double waveIntensity = configManager.getWallWaveIntensity();
+        double viewAngleEffect = configManager.getWallViewAngleEffect();
+        boolean useRaycastMethod = configManager.isWallUseRaycastMethod();
+        boolean useViewAngleMethod = configManager.isWallUseViewAngleMethod();
+        
+        // 以畫面時間計算波浪效果的相位
+        double waveOffset = (context.getFrameTimeMillis() / 1000.0) * waveSpeed;
+        
+        // 獲取水平和垂直線的粒子設定
+        ConfigManager.ParticleSettings horizontalSettings =
+                configManager.getParticleSettings(claim.getType(), ConfigManager.ClaimPart.HORIZONTAL);
+        ConfigManager.ParticleSettings verticalSettings =
+                configManager.getParticleSettings(claim.getType(), ConfigManager.ClaimPart.VERTICAL);
+        ConfigManager.ParticleSettings cornerSettings =
+                configManager.getParticleSettings(claim.getType(), ConfigManager.ClaimPart.TOP);
+        int horizontalRgb = horizontalSettings.getColor().asRGB();
+        int verticalRgb = verticalSettings.getColor().asRGB();
+        int cornerRgb = cornerSettings.getColor().asRGB();
+        
+        PointConsumer wallConsumer = (x, y, z, flags) -> {
+            if (!context.isVisible(x, y, z)) return;
+            
+            boolean isCorner = (flags & PointConsumer.FLAG_CORNER) != 0;
+            boolean isVertical = (flags & PointConsumer.FLAG_VERTICAL) != 0;
+            
+            // 1. 自適應密度：根據距離決定是否渲染
+            if (adaptiveDensity) {
+                // 根據距離計算渲染機率
+                double chance = context.calculateRenderChance(x, y, z, fadeDistance);
+                
+                // 2. 提高視線焦點區域的渲染機率
+                if (context.isInFocus(x, y, z)) {
+                    chance *= focusFactor;
+                }
+                
+                // 3. 強化邊緣
+                if (isCorner || isVertical) {
+                    chance *= edgeEmphasis;
+                }
+                
+                // 根據機率決定是否渲染
+                if (!RenderContext.shouldRender(x, y, z, chance)) {
+                    return;
+                }
+            }
+            
+            // 4. 波浪效果：根據時間和位置調整顏色亮度
+            double brightnessFactor = 1.0;
+            if (waveEffect) {
+                double locationFactor = (Math.floor(x) + Math.floor(y) + Math.floor(z)) * 0.1;
+                brightnessFactor *= Math.sin(waveOffset + locationFactor) * waveIntensity + 1.0;
+                
+                // 量化亮度，讓波浪顏色能重複使用快取的 DustOptions
+                brightnessFactor = RenderContext.quantizeBrightness(brightnessFactor);
+            }
+            
+            // 根據點的屬性選擇適當的顏色和亮度
+            if (isCorner) {
+                // 角落點使用頂部框架的顏色，並增強亮度
+                buffer.add(x, y, z, RenderContext.adjustColorBrightness(cornerRgb, brightnessFactor * 1.5), cornerSettings.getParticle(), flags);
+            } else if (isVertical) {
+                // 垂直點使用垂直線的顏色，並適當增強
+                buffer.add(x, y, z, RenderContext.adjustColorBrightness(verticalRgb, brightnessFactor * 1.2), verticalSettings.getParticle(), flags);
+            } else {
+                // 其他點使用水平線的顏色，正常亮度
+                buffer.add(x, y, z, RenderContext.adjustColorBrightness(horizontalRgb, brightnessFactor), horizontalSettings.getParticle(), flags);
+            }
+        };
+        
+        // 合併射線檢測與視角兩種方法的取樣範圍，重疊部分只產生一次
+        if (useRaycastMethod || useViewAngleMethod) {
+            claim.forEachWallModePoint(context.getPlayerLocation(), context.getPlayerDirection(),
+                    context.getRenderDistance(), context.getSpacing(), wallRadius, viewAngleEffect,
+                    useRaycastMethod, useViewAngleMethod, context.getSpacingLod(), wallConsumer);
+        }
+    }
+    
+    /**
+     * 波浪效果的顏色隨畫面時間變化，啟用時每個畫面都必須重新計算
+     */
+    @Override
+    public boolean isTimeDependent() {
+        return configManager.isWallWaveEffect();
+    }
+}